@@ -1,10 +1,16 @@
 package edu.montana.csci.csci468;
 
-import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompiledProgramCache;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.eval.BudgetExceededException;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.eval.OutputSink;
+import edu.montana.csci.csci468.eval.RuntimePool;
 import edu.montana.csci.csci468.js.JSTranspiler;
 import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.ParsedProgramCache;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
 import edu.montana.csci.csci468.tokenizer.TokenList;
@@ -12,7 +18,11 @@ import edu.montana.csci.csci468.util.HTMLParseTreeRenderer;
 import edu.montana.csci.csci468.util.Web;
 import spark.Spark;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -23,8 +33,43 @@ import java.util.stream.Collectors;
 import static spark.Spark.*;
 
 class CatScriptServer {
+
+    // what Spark would have sent for a returned body, set before streaming
+    // since the response is committed by the first chunk
+    static final String HTML = "text/html;charset=utf-8";
+    private static final CompiledProgramCache COMPILED_PROGRAMS = new CompiledProgramCache(256, CompilerOptions.metered());
+    // verified parse trees survive restarts, and the ones in use are shared
+    // by requests, which run them on pooled runtimes
+    private static final ParsedProgramCache PARSED_PROGRAMS = new ParsedProgramCache(
+            Paths.get(System.getProperty("java.io.tmpdir"), "catscript-ast"), 256);
+    private static final RuntimePool RUNTIMES = new RuntimePool(64);
+    // no script gets to keep the thread it runs on
+    private static final ExecutionBudget BUDGET = ExecutionBudget.untrusted();
+    private static ScriptDispatcher scripts = ScriptDispatcher.onRequestThreads();
+
+    // CatScriptServer [--port n] [--request-threads n] [--script-threads max-scripts]
+    //
+    // --request-threads sizes Jetty's pool, --script-threads runs scripts off
+    // the request threads with at most that many at once, see ScriptDispatcher
     public static void main(String[] args) {
-        port(6789);
+        int port = 6789;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--port":
+                    port = value;
+                    break;
+                case "--request-threads":
+                    threadPool(value);
+                    break;
+                case "--script-threads":
+                    scripts = ScriptDispatcher.onScriptThreads(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        port(port);
         Spark.staticFiles.location("/public");
         Web.init();
 
@@ -35,7 +80,7 @@ class CatScriptServer {
             if (name != null && !name.isBlank()) {
                 URL resource = CatScriptServer.class.getResource("/scripts/" + name );
                 Path path = Paths.get(resource.toURI());
-                code = Files.lines(path).collect(Collectors.joining("\n"));
+                code = Files.readString(path);
             } else {
                 code = "\n" +
                         "  // welcome to cs446!!!\n" +
@@ -62,47 +107,72 @@ class CatScriptServer {
 
         get("/evaluate", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            try {
-                program.verify();
-                program.execute();
-                return program.getOutput();
-            } catch (ParseErrorException parseErrorException) {
-                parseErrorException.printStackTrace();
-                return "<pre>" + parseErrorException.getMessage() + "</pre>";
-            }
+            return scripts.script(req, resp, response -> {
+                OutputSink output = OutputSink.of(response);
+                try {
+                    CatScriptProgram program = PARSED_PROGRAMS.getSharedProgram(source);
+                    RUNTIMES.execute(program, output, BUDGET);
+                } catch (BudgetExceededException budgetExceeded) {
+                    stopped(output, budgetExceeded);
+                } catch (ParseErrorException parseErrorException) {
+                    parseErrorException.printStackTrace();
+                    output.print("<pre>" + parseErrorException.getMessage() + "</pre>");
+                    output.flush();
+                }
+            });
         });
 
         get("/transpile", (req, resp) -> {
             String source = req.queryParams("src");
-
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            try {
-                program.verify();
-                JSTranspiler jsTranspiler = new JSTranspiler(program);
-                String jsSource = jsTranspiler.getJavascriptSource();
-                String output = jsTranspiler.evaluate();
-                return "<pre>" + "\n\n  Source =================\n\n" + jsSource + "\n\n  Output =================\n\n" + output + "</pre>";
-            } catch (ParseErrorException parseErrorException) {
-                parseErrorException.printStackTrace();
-                return "<pre>" + parseErrorException.getMessage() + "</pre>";
-            }
+            return scripts.javascript(req, resp, response -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(response, StandardCharsets.UTF_8));
+                try {
+                    CatScriptProgram program = new CatScriptParser().parse(source);
+                    program.verify();
+                    JSTranspiler jsTranspiler = new JSTranspiler(program);
+                    String jsSource = jsTranspiler.getJavascriptSource();
+                    writer.write("<pre>" + "\n\n  Source =================\n\n" + jsSource + "\n\n  Output =================\n\n");
+                    jsTranspiler.evaluate(writer);
+                    writer.write("</pre>");
+                } catch (ParseErrorException parseErrorException) {
+                    parseErrorException.printStackTrace();
+                    writer.write("<pre>" + parseErrorException.getMessage() + "</pre>");
+                }
+                writer.flush();
+            });
         });
 
         get("/compile", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
-            try {
-                program.verify();
-                ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
-                CatScriptProgram compiledProgram = byteCodeGenerator.compileToBytecode();
-                compiledProgram.execute();
-                return compiledProgram.getOutput();
-            } catch (ParseErrorException parseErrorException) {
-                parseErrorException.printStackTrace();
-                return "<pre>" + parseErrorException.getMessage() + "</pre>";
-            }
+            return scripts.script(req, resp, response -> {
+                OutputSink output = OutputSink.of(response);
+                try {
+                    CatScriptProgram compiledProgram = scripts.loadClasses(() -> COMPILED_PROGRAMS.newProgram(source));
+                    RUNTIMES.execute(compiledProgram, output, BUDGET);
+                } catch (BudgetExceededException budgetExceeded) {
+                    stopped(output, budgetExceeded);
+                } catch (ParseErrorException parseErrorException) {
+                    parseErrorException.printStackTrace();
+                    output.print("<pre>" + parseErrorException.getMessage() + "</pre>");
+                    output.flush();
+                }
+            });
         });
 
+        get("/compile/cache", (req, resp) -> {
+            return "<pre>" +
+                    "entries: " + COMPILED_PROGRAMS.size() + "\n" +
+                    "hits:    " + COMPILED_PROGRAMS.getHits() + "\n" +
+                    "misses:  " + COMPILED_PROGRAMS.getMisses() + "\n" +
+                    "</pre>";
+        });
+
+    }
+
+    // what was printed before the script was stopped has been sent already,
+    // the reason goes after it
+    private static void stopped(OutputSink output, BudgetExceededException budgetExceeded) {
+        output.print("<pre>" + budgetExceeded.getMessage() + "</pre>");
+        output.flush();
     }
 }
\ No newline at end of file
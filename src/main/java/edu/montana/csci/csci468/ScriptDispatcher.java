@@ -0,0 +1,185 @@
+package edu.montana.csci.csci468;
+
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.AsyncContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Decides where the server runs the scripts it is sent.
+//
+// onRequestThreads() runs everything on the Jetty thread that took the
+// request, as the server always has, so a handful of slow scripts can hold
+// every request thread and the cheap requests queue up behind them.
+//
+// onScriptThreads() lets the request thread go as soon as a script is
+// admitted: the response is switched to async and the script runs on a
+// thread of its own, a virtual thread where the JDK has them (21 and up) and
+// a platform thread otherwise.  Script engines and class definition are
+// heavy and do not scale with threads, so the JavaScript engine and class
+// loading get small fixed pools of their own.  Admission control caps the
+// scripts in flight, past that requests are answered with 503 straight away
+// instead of piling up.
+final class ScriptDispatcher {
+
+    // writes a script's response, the output stream is the response body
+    interface Job {
+        void run(OutputStream response) throws Exception;
+    }
+
+    private final ExecutorService scripts;
+    private final ExecutorService javascript;
+    private final ExecutorService classLoading;
+    private final Semaphore admitted;
+
+    ScriptDispatcher(ExecutorService scripts, ExecutorService javascript, ExecutorService classLoading,
+                     int maxScripts) {
+        this.scripts = scripts;
+        this.javascript = javascript;
+        this.classLoading = classLoading;
+        this.admitted = new Semaphore(maxScripts);
+    }
+
+    static ScriptDispatcher onRequestThreads() {
+        return new ScriptDispatcher(null, null, null, Integer.MAX_VALUE);
+    }
+
+    static ScriptDispatcher onScriptThreads(int maxScripts) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return new ScriptDispatcher(newThreadPerTaskExecutor(),
+                Executors.newFixedThreadPool(Math.max(1, processors / 2), daemonThreads("catscript-javascript")),
+                Executors.newFixedThreadPool(processors, daemonThreads("catscript-class-loading")),
+                maxScripts);
+    }
+
+    // runs a script job, the returned value is the body for Spark
+    Object script(Request req, Response resp, Job job) throws Exception {
+        return dispatch(req, resp, scripts, job);
+    }
+
+    // a job that spends its time in the JavaScript engine
+    Object javascript(Request req, Response resp, Job job) throws Exception {
+        return dispatch(req, resp, javascript, job);
+    }
+
+    // generates and defines classes from within a job, and waits for them
+    <T> T loadClasses(Callable<T> load) throws Exception {
+        if (classLoading == null) {
+            return load.call();
+        }
+        try {
+            return classLoading.submit(load).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // jobs write to the response as the script prints.  With no content
+    // length set the response goes out chunked, so a long running script
+    // starts sending before it is done and is never held in memory
+    private Object dispatch(Request req, Response resp, ExecutorService executor, Job job) throws Exception {
+        resp.type(CatScriptServer.HTML);
+        if (executor == null) {
+            job.run(resp.raw().getOutputStream());
+            return "";
+        }
+        if (!admitted.tryAcquire()) {
+            resp.status(503);
+            resp.header("Retry-After", "1");
+            return "<pre>Too many scripts are running, try again shortly</pre>";
+        }
+        // the job is handed over before anything is committed, so a failed
+        // hand over still gets an error status.  From then on the permit is
+        // the job's to release, and it waits until the response is committed
+        // and left to it
+        CompletableFuture<AsyncContext> handedOver = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                AsyncContext async;
+                try {
+                    async = handedOver.join();
+                } catch (CompletionException e) {
+                    admitted.release();
+                    return;
+                }
+                try {
+                    job.run(resp.raw().getOutputStream());
+                } catch (Exception e) {
+                    // the status went out already, so the client learns of
+                    // the failure from the end of the body
+                    e.printStackTrace();
+                    failed(resp, e);
+                } finally {
+                    // the permit is back before the client sees the end of
+                    // the response
+                    admitted.release();
+                    async.complete();
+                }
+            });
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+        AsyncContext async = null;
+        try {
+            async = req.raw().startAsync();
+            async.setTimeout(0);
+            // committed, Spark leaves the response to the job from here on
+            resp.raw().flushBuffer();
+        } catch (RuntimeException | IOException e) {
+            handedOver.completeExceptionally(e);
+            if (async != null) {
+                async.complete();
+            }
+            throw e;
+        }
+        handedOver.complete(async);
+        return "";
+    }
+
+    // follows whatever the job sent, as a script stopped by its budget is
+    // followed by the reason.  A client that went away gets nothing
+    private static void failed(Response resp, Exception e) {
+        try {
+            OutputStream body = resp.raw().getOutputStream();
+            body.write(("<pre>Script failed: " + e + "</pre>").getBytes(StandardCharsets.UTF_8));
+            body.flush();
+        } catch (IOException | RuntimeException ignored) {
+        }
+    }
+
+    // looked up by reflection so the server still builds and runs on JDK 17
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreads.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // admission keeps these to maxScripts at once
+            return Executors.newCachedThreadPool(daemonThreads("catscript-script"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
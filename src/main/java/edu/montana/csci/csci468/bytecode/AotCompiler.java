@@ -0,0 +1,86 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+// Writes compiled programs to disk as class files or runnable jars.  The
+// output only needs the CatScript runtime classes on the class path, see
+// CatScriptMain.
+//
+//   usage: AotCompiler <script> <class name> <output directory | output.jar>
+public class AotCompiler {
+
+    private final CompilerOptions options;
+
+    public AotCompiler() {
+        this(new CompilerOptions());
+    }
+
+    public AotCompiler(CompilerOptions options) {
+        this.options = options;
+    }
+
+    public byte[] compile(CatScriptProgram program, String className) {
+        return new ByteCodeGenerator(program, options).compileToClassFile(className);
+    }
+
+    // writes the class under its package directories in outputDirectory and
+    // returns the path of the class file
+    public Path writeClassFile(CatScriptProgram program, String className, Path outputDirectory) throws IOException {
+        Path classFile = outputDirectory.resolve(classFileName(className));
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, compile(program, className));
+        return classFile;
+    }
+
+    // writes a jar whose main class is the program, runtimeClassPath is put in
+    // the manifest Class-Path so the jar can be run with java -jar, it may be
+    // null if the runtime is provided some other way
+    public Path writeJar(CatScriptProgram program, String className, Path jarFile, String runtimeClassPath) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, className);
+        if (runtimeClassPath != null) {
+            attributes.put(Attributes.Name.CLASS_PATH, runtimeClassPath);
+        }
+        byte[] classBytes = compile(program, className);
+        try (OutputStream out = Files.newOutputStream(jarFile);
+             JarOutputStream jar = new JarOutputStream(out, manifest)) {
+            jar.putNextEntry(new JarEntry(classFileName(className)));
+            jar.write(classBytes);
+            jar.closeEntry();
+        }
+        return jarFile;
+    }
+
+    private static String classFileName(String className) {
+        return className.replace('.', '/') + ".class";
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: AotCompiler <script> <class name> <output directory | output.jar>");
+            System.exit(1);
+        }
+        CatScriptProgram program = new CatScriptParser().parse(Files.readString(Paths.get(args[0])));
+        program.verify();
+        Path output = Paths.get(args[2]);
+        AotCompiler compiler = new AotCompiler();
+        if (output.toString().endsWith(".jar")) {
+            compiler.writeJar(program, args[1], output, null);
+        } else {
+            compiler.writeClassFile(program, args[1], output);
+        }
+    }
+}
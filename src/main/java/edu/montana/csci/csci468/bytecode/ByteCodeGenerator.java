@@ -1,12 +1,16 @@
 package edu.montana.csci.csci468.bytecode;
 
+import edu.montana.csci.csci468.eval.CallDepth;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import org.objectweb.asm.*;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Collection;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -14,47 +18,122 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ByteCodeGenerator {
 
     private static final AtomicInteger classInteger = new AtomicInteger();
-    private static final DynamicClassLoader CLASS_LOADER = new DynamicClassLoader();
+    private static final Handle STRING_CONCAT_BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                    "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;", false);
+    // local holding the runtime of the run, in execute() and in every compiled
+    // function, or in a metered function the CallDepth it runs at.  Neither
+    // is a legal identifier
+    private static final String RUNTIME = "$runtime";
+    private static final String CALL_DEPTH = "$depth";
+    public static final String RUNTIME_DESCRIPTOR = "L" + internalNameFor(CatscriptRuntime.class) + ";";
+    public static final String CALL_DEPTH_DESCRIPTOR = "L" + internalNameFor(CallDepth.class) + ";";
 
     private ClassWriter classWriter;
     private MethodGenerator currentMethod;
     private Stack<MethodGenerator> methodStack;
 
     private final CatScriptProgram program;
+    private final CompilerOptions options;
     private String internalClassName;
     private String dotClassName;
 
 public ByteCodeGenerator(CatScriptProgram program) {
+        this(program, new CompilerOptions());
+    }
+
+    public ByteCodeGenerator(CatScriptProgram program, CompilerOptions options) {
+        if (options.isIndyStringConcat() && (options.getTargetVersion() & 0xFFFF) < Opcodes.V9) {
+            throw new IllegalArgumentException("invokedynamic string concatenation requires a Java 9+ target");
+        }
         this.program = program;
+        this.options = options;
+    }
+
+    public CompilerOptions getOptions() {
+        return options;
     }
 
     public CatScriptProgram compileToBytecode() {
-        methodStack = new Stack<>();
-        classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-        internalClassName = "edu/montana/csci/csci466/bytecode/CatScriptProgram" + classInteger.incrementAndGet();
-        dotClassName = internalClassName.replace('/', '.');
-        makeClass(internalClassName);
-        makeConstructor();
+        return newInstance(compileToClass());
+    }
 
-        currentMethod = makeMethod(Opcodes.ACC_PUBLIC, "execute", "()V");
+    // the generated class can be instantiated any number of times, each
+    // instance has its own globals
+    public Class<? extends CatScriptProgram> compileToClass() {
+        startClass(CatScriptProgram.class, nextClassName());
+        compileExecute();
+        return loadClass(dotClassName, finishClass());
+    }
+
+    // compiles the program to a standalone class file with the given name and
+    // a main method, see CatScriptMain, the class is not loaded
+    public byte[] compileToClassFile(String className) {
+        startClass(CatScriptProgram.class, className.replace('.', '/'));
+        compileExecute();
+        compileMain();
+        return finishClass();
+    }
+
+    private void compileExecute() {
+        currentMethod = makeMethod(Opcodes.ACC_PUBLIC, "execute", "(" + RUNTIME_DESCRIPTOR + ")V");
+        createRuntimeSlot();
         program.compile(this);
         currentMethod.close();
+    }
 
+    private void compileMain() {
+        try (MethodGenerator main = makeMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V")) {
+            main.addTypeInstruction(Opcodes.NEW, internalClassName);
+            main.addInstruction(Opcodes.DUP);
+            main.addMethodInstruction(Opcodes.INVOKESPECIAL, internalClassName, "<init>", "()V");
+            main.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(CatScriptMain.class),
+                    "run", "(L" + internalNameFor(CatScriptProgram.class) + ";)V");
+            main.addInstruction(Opcodes.RETURN);
+        }
+    }
+
+    // compiles only the given functions as methods of a subclass of superClass,
+    // the functions may only call each other
+    public CatScriptProgram compileFunctions(Collection<FunctionDefinitionStatement> functions,
+                                             Class<? extends CatScriptProgram> superClass) {
+        startClass(superClass, nextClassName());
+        for (FunctionDefinitionStatement function : functions) {
+            function.compile(this);
+        }
+        return newInstance(loadClass(dotClassName, finishClass()));
+    }
+
+    private static String nextClassName() {
+        return "edu/montana/csci/csci466/bytecode/CatScriptProgram" + classInteger.incrementAndGet();
+    }
+
+    private void startClass(Class<? extends CatScriptProgram> superClass, String internalName) {
+        methodStack = new Stack<>();
+        classWriter = new FrameComputingClassWriter();
+        internalClassName = internalName;
+        dotClassName = internalClassName.replace('/', '.');
+        makeClass(internalClassName, internalNameFor(superClass));
+        makeConstructor(internalNameFor(superClass));
+    }
+
+    private byte[] finishClass() {
         classWriter.visitEnd();
         byte[] classBytes = classWriter.toByteArray();
-        printClassASM(classBytes);
-        return loadClass(dotClassName, classBytes);
+        checkClass(classBytes);
+        return classBytes;
     }
 
-    private void makeClass(String className) {
-        classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC,
-                className, null, internalNameFor(CatScriptProgram.class) , null);
+    private void makeClass(String className, String superName) {
+        classWriter.visit(options.getTargetVersion(), Opcodes.ACC_PUBLIC,
+                className, null, superName, null);
     }
 
-    private void makeConstructor() {
+    private void makeConstructor(String superName) {
         try (MethodGenerator constructor = makeMethod(Opcodes.ACC_PUBLIC, "<init>", "()V")) {
             constructor.addVarInstruction(Opcodes.ALOAD, 0);
-            constructor.addMethodInstruction(Opcodes.INVOKESPECIAL, internalNameFor(CatScriptProgram.class), "<init>", "()V");
+            constructor.addMethodInstruction(Opcodes.INVOKESPECIAL, superName, "<init>", "()V");
             constructor.addInstruction(Opcodes.RETURN);
         }
     }
@@ -80,23 +159,46 @@ public ByteCodeGenerator(CatScriptProgram program) {
         return new MethodGenerator(method);
     }
 
-    private void printClassASM(byte[] classBytes) {
+    // verification and the debug dump share a single extra pass over the
+    // class, which is skipped entirely with the default options
+    private void checkClass(byte[] classBytes) {
+        CompilerOptions.Verification verification = options.getVerification();
+        if (verification == CompilerOptions.Verification.NONE && !options.isDebugDump()) {
+            return;
+        }
         StringWriter writer = new StringWriter();
-        var visitor = new TraceClassVisitor(new PrintWriter(writer));
-        CheckClassAdapter checkAdapter = new CheckClassAdapter(visitor);
+        ClassVisitor visitor = options.isDebugDump() ? new TraceClassVisitor(new PrintWriter(writer)) : null;
+        if (verification != CompilerOptions.Verification.NONE) {
+            visitor = new CheckClassAdapter(visitor, verification == CompilerOptions.Verification.DATA_FLOW);
+        }
         ClassReader reader = new ClassReader(classBytes);
-        reader.accept(checkAdapter, 0);
-        String decompiledTransformedClass = writer.getBuffer().toString();
+        reader.accept(visitor, 0);
+        if (options.isDebugDump()) {
+            printClassASM(writer.getBuffer().toString());
+        }
+    }
+
+    private void printClassASM(String decompiledTransformedClass) {
         System.out.println(" JVM Bytecode ===================================\n");
         System.out.println(decompiledTransformedClass);
         System.out.println("\n ================================================");
     }
 
-    private CatScriptProgram loadClass(String dotClassName, byte[] classBytes) {
+    // every compilation unit gets its own class loader, so a generated class
+    // (and its metaspace) can be collected once nothing refers to it anymore
+    private Class<? extends CatScriptProgram> loadClass(String dotClassName, byte[] classBytes) {
+        try {
+            DynamicClassLoader classLoader = new DynamicClassLoader(ByteCodeGenerator.class.getClassLoader());
+            classLoader.defineClass(dotClassName, classBytes);
+            return classLoader.loadClass(dotClassName).asSubclass(CatScriptProgram.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static CatScriptProgram newInstance(Class<? extends CatScriptProgram> programClass) {
         try {
-            CLASS_LOADER.defineClass(dotClassName, classBytes);
-            Class<?> clazz = CLASS_LOADER.loadClass(dotClassName);
-            return (CatScriptProgram) clazz.getConstructor().newInstance();
+            return programClass.getConstructor().newInstance();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -114,11 +216,73 @@ public ByteCodeGenerator(CatScriptProgram program) {
         return currentMethod.resolveLocalStorageSlotFor(name);
     }
 
+    // the runtime is the first parameter of execute() and of compiled
+    // functions, this names its slot
+    public void createRuntimeSlot() {
+        currentMethod.createLocalStorageSlotFor(RUNTIME);
+    }
+
+    public void createCallDepthSlot() {
+        currentMethod.createLocalStorageSlotFor(CALL_DEPTH);
+    }
+
+    // output and limits are the runtime's, so compiled code prints and counts
+    // through it
+    public void loadRuntime() {
+        Integer runtime = currentMethod.resolveLocalStorageSlotFor(RUNTIME);
+        if (runtime != null) {
+            currentMethod.addVarInstruction(Opcodes.ALOAD, runtime);
+        } else {
+            currentMethod.addVarInstruction(Opcodes.ALOAD, currentMethod.resolveLocalStorageSlotFor(CALL_DEPTH));
+            currentMethod.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CallDepth.class), "getRuntime", "()" + RUNTIME_DESCRIPTOR);
+        }
+    }
+
+    // pushes the CallDepth a metered call made from here runs at
+    public void loadCallDepthForCall() {
+        Integer callDepth = currentMethod.resolveLocalStorageSlotFor(CALL_DEPTH);
+        if (callDepth != null) {
+            currentMethod.addVarInstruction(Opcodes.ALOAD, callDepth);
+        } else {
+            loadRuntime();
+            invokeRuntime("getTopLevel", "()" + CALL_DEPTH_DESCRIPTOR);
+        }
+        currentMethod.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CallDepth.class), "deeper", "()" + CALL_DEPTH_DESCRIPTOR);
+    }
+
+    public void invokeRuntime(String name, String descriptor) {
+        currentMethod.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CatscriptRuntime.class), name, descriptor);
+    }
+
     public String getProgramInternalName() {
         return internalClassName;
     }
 
+    // Java 7+ class files need stack map frames, which ASM computes by loading
+    // the types involved.  The generated class itself can't be loaded yet, and
+    // only ever merges with Object, so fall back to Object for unknown types.
+    static class FrameComputingClassWriter extends ClassWriter {
+        FrameComputingClassWriter() {
+            super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        }
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            try {
+                return super.getCommonSuperClass(type1, type2);
+            } catch (TypeNotPresentException e) {
+                return "java/lang/Object";
+            }
+        }
+        @Override
+        protected ClassLoader getClassLoader() {
+            return ByteCodeGenerator.class.getClassLoader();
+        }
+    }
+
     static class DynamicClassLoader extends ClassLoader {
+        DynamicClassLoader(ClassLoader parent) {
+            super(parent);
+        }
         public void defineClass(String name, byte[] bytes) {
             defineClass(name, bytes, 0, bytes.length);
         }
@@ -136,6 +300,11 @@ public ByteCodeGenerator(CatScriptProgram program) {
         currentMethod.addIntInstruction(opcode, operand);
     }
 
+    // recipe and argument conventions are those of StringConcatFactory.makeConcatWithConstants
+    public void addStringConcatInstruction(String recipe, String descriptor) {
+        currentMethod.addInvokeDynamicInstruction("makeConcatWithConstants", descriptor, STRING_CONCAT_BOOTSTRAP, recipe);
+    }
+
     public void addVarInstruction(int opcode, int var) {
         currentMethod.addVarInstruction(opcode, var);
     }
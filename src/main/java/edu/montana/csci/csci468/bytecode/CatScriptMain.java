@@ -0,0 +1,34 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.OutputSink;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+
+// Runtime entry point for ahead of time compiled programs.  Classes written
+// by AotCompiler call run() from their own main method, so they can be
+// started directly, or by name through this class:
+//
+//   java -cp catscript.jar:out edu.montana.csci.csci468.bytecode.CatScriptMain my.Script
+//
+// Neither path touches the tokenizer, parser or ASM.
+public class CatScriptMain {
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        if (args.length != 1) {
+            System.err.println("usage: CatScriptMain <program class>");
+            System.exit(1);
+        }
+        Class<? extends CatScriptProgram> programClass = Class.forName(args[0]).asSubclass(CatScriptProgram.class);
+        run(programClass.getConstructor().newInstance());
+    }
+
+    // output is written as the program prints, not once it has finished
+    public static void run(CatScriptProgram program) {
+        OutputSink output = OutputSink.of(new BufferedWriter(new OutputStreamWriter(System.out)));
+        program.execute(new CatscriptRuntime(program.getGlobalSlots(), null, output));
+        output.flush();
+    }
+}
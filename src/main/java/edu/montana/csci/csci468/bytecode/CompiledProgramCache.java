@@ -0,0 +1,88 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded LRU cache from the hash of a source to its compiled program class.
+// Sources are hashed exactly as given: a string literal can span lines, so
+// even line endings can change what a script prints.  Compiled globals are
+// fields of the instance, so the cache keeps the class and hands out a fresh
+// instance for every request.
+public class CompiledProgramCache {
+
+    private final Map<String, Class<? extends CatScriptProgram>> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final CompilerOptions options;
+
+    public CompiledProgramCache(int maxEntries) {
+        this(maxEntries, new CompilerOptions());
+    }
+
+    public CompiledProgramCache(int maxEntries, CompilerOptions options) {
+        this.options = options;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Class<? extends CatScriptProgram>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // throws a ParseErrorException if the source does not verify, in which
+    // case nothing is cached
+    public CatScriptProgram newProgram(String source) {
+        String key = hash(source);
+        Class<? extends CatScriptProgram> programClass;
+        synchronized (cache) {
+            programClass = cache.get(key);
+        }
+        if (programClass != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            CatScriptProgram program = new CatScriptParser().parse(source);
+            program.verify();
+            programClass = new ByteCodeGenerator(program, options).compileToClass();
+            synchronized (cache) {
+                cache.put(key, programClass);
+            }
+        }
+        return ByteCodeGenerator.newInstance(programClass);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
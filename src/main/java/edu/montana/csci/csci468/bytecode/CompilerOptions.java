@@ -0,0 +1,118 @@
+package edu.montana.csci.csci468.bytecode;
+
+import org.objectweb.asm.Opcodes;
+
+// Options for the bytecode compiler.  The defaults are the production path:
+// the generated class is loaded straight from the class writer without a
+// second pass over it and without writing anything to System.out.
+public class CompilerOptions {
+
+    public enum Verification {
+        // trust the generated class, the JVM verifier still runs when it loads
+        NONE,
+        // check the structure of the class with ASM's CheckClassAdapter
+        STRUCTURE,
+        // also run a data flow analysis over every method
+        DATA_FLOW
+    }
+
+    private boolean debugDump = false;
+    private Verification verification = Verification.NONE;
+    private int targetVersion = Opcodes.V1_5;
+    private boolean staticFunctions = false;
+    private boolean indyStringConcat = false;
+    private boolean metered = false;
+
+    // dumps the disassembled class to System.out and checks it fully, which is
+    // what the compiler always used to do
+    public static CompilerOptions debug() {
+        CompilerOptions options = new CompilerOptions();
+        options.setDebugDump(true);
+        options.setVerification(Verification.DATA_FLOW);
+        return options;
+    }
+
+    // Java 11 class files, top level functions as static methods and string
+    // concatenation through StringConcatFactory
+    public static CompilerOptions modern() {
+        CompilerOptions options = new CompilerOptions();
+        options.setTargetVersion(Opcodes.V11);
+        options.setStaticFunctions(true);
+        options.setIndyStringConcat(true);
+        return options;
+    }
+
+    // code that counts against the ExecutionBudget of the runtime it runs on
+    public static CompilerOptions metered() {
+        CompilerOptions options = new CompilerOptions();
+        options.setMetered(true);
+        return options;
+    }
+
+    public CompilerOptions copy() {
+        CompilerOptions copy = new CompilerOptions();
+        copy.debugDump = debugDump;
+        copy.verification = verification;
+        copy.targetVersion = targetVersion;
+        copy.staticFunctions = staticFunctions;
+        copy.indyStringConcat = indyStringConcat;
+        copy.metered = metered;
+        return copy;
+    }
+
+    public boolean isDebugDump() {
+        return debugDump;
+    }
+
+    public void setDebugDump(boolean debugDump) {
+        this.debugDump = debugDump;
+    }
+
+    public Verification getVerification() {
+        return verification;
+    }
+
+    public void setVerification(Verification verification) {
+        this.verification = verification;
+    }
+
+    public int getTargetVersion() {
+        return targetVersion;
+    }
+
+    // one of the Opcodes.V* class file versions
+    public void setTargetVersion(int targetVersion) {
+        this.targetVersion = targetVersion;
+    }
+
+    public boolean isStaticFunctions() {
+        return staticFunctions;
+    }
+
+    // functions become static methods that take the program instance as
+    // their first parameter, which they need for print and globals
+    public void setStaticFunctions(boolean staticFunctions) {
+        this.staticFunctions = staticFunctions;
+    }
+
+    public boolean isIndyStringConcat() {
+        return indyStringConcat;
+    }
+
+    // requires a target version of at least Java 9
+    public void setIndyStringConcat(boolean indyStringConcat) {
+        this.indyStringConcat = indyStringConcat;
+    }
+
+    public boolean isMetered() {
+        return metered;
+    }
+
+    // loops count their iterations and functions take their call depth, so
+    // runs can be held to loop, call depth and wall time limits.  Code
+    // compiled without it only honours the output limit, and refuses to run
+    // with any other
+    public void setMetered(boolean metered) {
+        this.metered = metered;
+    }
+}
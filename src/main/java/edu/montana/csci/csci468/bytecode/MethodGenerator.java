@@ -45,6 +45,10 @@ public class MethodGenerator implements AutoCloseable {
         delegate.visitIntInsn(opcode, operand);
     }
 
+    public void addInvokeDynamicInstruction(String name, String descriptor, Handle bootstrap, Object... bootstrapArguments) {
+        delegate.visitInvokeDynamicInsn(name, descriptor, bootstrap, bootstrapArguments);
+    }
+
     public void addVarInstruction(int opcode, int var) {
         delegate.visitVarInsn(opcode, var);
     }
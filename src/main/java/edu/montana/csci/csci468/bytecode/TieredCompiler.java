@@ -0,0 +1,279 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.eval.CallDepth;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
+import edu.montana.csci.csci468.parser.expressions.IdentifierExpression;
+import edu.montana.csci.csci468.parser.statements.AssignmentStatement;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Tiered execution: a program starts out in the interpreter, which counts
+// invocations and loop iterations per function.  Once a function crosses the
+// threshold it is compiled to bytecode on a background thread, and later calls
+// switch to the compiled version as soon as it is ready.
+//
+// The counts and compiled versions are kept here, by function, rather than on
+// the tree: the tree is shared by every run and every edit of a Document, and
+// the compiled versions belong to this compiler's program alone.  They are
+// held in an array by the index the program gave the function, as every
+// call and every loop looks its function up.
+//
+// Compiled code cannot see the interpreter's global frame, so only functions
+// that use no global variables are compiled, together with the functions they
+// call.  To keep the calling convention simple, parameters must be ints and
+// the function must return an int or nothing.  Anything else keeps running in
+// the interpreter.
+public class TieredCompiler {
+
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private static final ExecutorService COMPILER_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catscript-tiered-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the type of every compiled version, see TieredFunction.getCompiledVersion()
+    private static final MethodType COMPILED_TYPE = MethodType.methodType(Object.class, CallDepth.class, Object[].class);
+    private static final MethodHandle FRAME_SLOT = MethodHandles.arrayElementGetter(Object[].class);
+
+    private final CatScriptProgram program;
+    private final int threshold;
+    private final List<Future<?>> compilations = new ArrayList<>();
+    // written under the compiler's lock and read without it, a reader that
+    // misses an entry takes the lock and looks again
+    private volatile TieredFunction[] functions = new TieredFunction[8];
+
+    public TieredCompiler(CatScriptProgram program) {
+        this(program, DEFAULT_THRESHOLD);
+    }
+
+    public TieredCompiler(CatScriptProgram program, int threshold) {
+        this.program = program;
+        this.threshold = threshold;
+    }
+
+    // runs the program on a new runtime and returns what was printed
+    public String execute() {
+        CatscriptRuntime runtime = newRuntime();
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    // a runtime whose calls go through this compiler
+    public CatscriptRuntime newRuntime() {
+        return new CatscriptRuntime(program.getGlobalSlots(), this);
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public TieredFunction tieringOf(FunctionDefinitionStatement function) {
+        TieredFunction[] table = functions;
+        int index = function.getIndex();
+        if (index < table.length) {
+            TieredFunction tiering = table[index];
+            if (tiering != null) {
+                return tiering;
+            }
+        }
+        return addTiering(function);
+    }
+
+    private synchronized TieredFunction addTiering(FunctionDefinitionStatement function) {
+        int index = function.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException(function.getName() + " is not part of a program");
+        }
+        TieredFunction[] table = functions;
+        if (index >= table.length) {
+            table = Arrays.copyOf(table, Math.max(index + 1, table.length * 2));
+        }
+        TieredFunction tiering = table[index];
+        if (tiering == null) {
+            tiering = new TieredFunction(function);
+            table[index] = tiering;
+        }
+        functions = table;
+        return tiering;
+    }
+
+    public boolean isCompiled(FunctionDefinitionStatement function) {
+        return tieringOf(function).compiledVersion != null;
+    }
+
+    // why the function could not be compiled, or null if it was or has not
+    // been tried yet
+    public Throwable getCompileFailure(FunctionDefinitionStatement function) {
+        return tieringOf(function).failure;
+    }
+
+    private void compileInBackground(FunctionDefinitionStatement function) {
+        synchronized (compilations) {
+            compilations.add(COMPILER_THREAD.submit(() -> compile(function)));
+        }
+    }
+
+    // blocks until every requested compilation has finished
+    public void awaitCompilations() {
+        List<Future<?>> pending;
+        synchronized (compilations) {
+            pending = new ArrayList<>(compilations);
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    // a function that can't be compiled keeps running in the interpreter, and
+    // is not tried again
+    private void compile(FunctionDefinitionStatement function) {
+        Set<FunctionDefinitionStatement> unit = new LinkedHashSet<>();
+        if (!collectCompilationUnit(function, unit)) {
+            tieringOf(function).failure = new UnsupportedOperationException(
+                    function.getName() + " uses globals or types compiled functions can't take");
+            return;
+        }
+        try {
+            // metered, as the run a compiled function joins may have a budget
+            ByteCodeGenerator generator = new ByteCodeGenerator(program, CompilerOptions.metered());
+            // compiled functions print and count through the runtime they are
+            // called with, the instance only holds them
+            CatScriptProgram host = generator.compileFunctions(unit, CatScriptProgram.class);
+            for (FunctionDefinitionStatement compiled : unit) {
+                TieredFunction tiering = tieringOf(compiled);
+                if (tiering.compiledVersion == null) {
+                    tiering.compiledVersion = handleFor(host, compiled);
+                }
+            }
+        } catch (RuntimeException | LinkageError | ReflectiveOperationException e) {
+            // the bytecode backend cannot handle this function
+            tieringOf(function).failure = e;
+        }
+    }
+
+    private MethodHandle handleFor(CatScriptProgram host, FunctionDefinitionStatement function) throws ReflectiveOperationException {
+        // the CallDepth comes first, see FunctionDefinitionStatement.compile()
+        Class<?>[] parameters = new Class<?>[function.getParameterCount() + 1];
+        parameters[0] = CallDepth.class;
+        for (int i = 1; i < parameters.length; i++) {
+            parameters[i] = int.class;
+        }
+        Class<?> returnType = function.getType().equals(CatscriptType.VOID) ? void.class : int.class;
+        MethodHandle handle = MethodHandles.publicLookup()
+                .findVirtual(host.getClass(), function.getName(), MethodType.methodType(returnType, parameters))
+                .bindTo(host);
+        // each int is read from its slot of the interpreter's frame and
+        // unboxed, so a call allocates no argument array
+        MethodHandle[] arguments = new MethodHandle[function.getParameterCount()];
+        int[] reorder = new int[parameters.length];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = MethodHandles.insertArguments(FRAME_SLOT, 1, i)
+                    .asType(MethodType.methodType(int.class, Object[].class));
+            reorder[i + 1] = 1;
+        }
+        handle = MethodHandles.filterArguments(handle, 1, arguments);
+        handle = MethodHandles.permuteArguments(handle,
+                MethodType.methodType(returnType, CallDepth.class, Object[].class), reorder);
+        return handle.asType(COMPILED_TYPE);
+    }
+
+    private boolean collectCompilationUnit(FunctionDefinitionStatement function, Set<FunctionDefinitionStatement> unit) {
+        if (!unit.add(function)) {
+            return true;
+        }
+        CatscriptType type = function.getType();
+        if (!type.equals(CatscriptType.INT) && !type.equals(CatscriptType.VOID)) {
+            return false;
+        }
+        for (int i = 0; i < function.getParameterCount(); i++) {
+            if (!function.getParameterType(i).equals(CatscriptType.INT)) {
+                return false;
+            }
+        }
+        return isCompilable(function, unit);
+    }
+
+    // the tiering state of one function
+    public final class TieredFunction {
+        private final FunctionDefinitionStatement function;
+        private int invocationCount;
+        private int loopIterationCount;
+        private boolean compilationRequested;
+        private volatile MethodHandle compiledVersion;
+        private volatile Throwable failure;
+
+        private TieredFunction(FunctionDefinitionStatement function) {
+            this.function = function;
+        }
+
+        // the handle takes the CallDepth of the call and the frame holding
+        // the arguments, and returns an Object, null for a void function
+        public MethodHandle getCompiledVersion() {
+            return compiledVersion;
+        }
+
+        // both counts ask for a compilation once the function is hot, so a
+        // function called once that spends its time in a loop is compiled
+        // too.  The compiled version is used from its next call on; a call
+        // already running stays interpreted.  Concurrent runs may lose a
+        // count now and then, which only moves the moment it is asked for
+        public void countInvocation() {
+            invocationCount++;
+            requestCompilationIfHot();
+        }
+
+        public void countLoopIteration() {
+            loopIterationCount++;
+            requestCompilationIfHot();
+        }
+
+        private void requestCompilationIfHot() {
+            if (!compilationRequested && invocationCount + loopIterationCount >= threshold) {
+                compilationRequested = true;
+                compileInBackground(function);
+            }
+        }
+    }
+
+    private boolean isCompilable(ParseElement element, Set<FunctionDefinitionStatement> unit) {
+        if (element instanceof IdentifierExpression && ((IdentifierExpression) element).getDepth() != 0) {
+            return false;
+        }
+        if (element instanceof AssignmentStatement && ((AssignmentStatement) element).getDepth() != 0) {
+            return false;
+        }
+        if (element instanceof FunctionCallExpression) {
+            FunctionDefinitionStatement callee = program.getFunction(((FunctionCallExpression) element).getName());
+            if (callee == null || !collectCompilationUnit(callee, unit)) {
+                return false;
+            }
+        }
+        for (ParseElement child : element.getChildren()) {
+            if (!isCompilable(child, unit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,6 @@
+package edu.montana.csci.csci468.closure;
+
+@FunctionalInterface
+public interface BooleanClosure {
+    boolean evaluate(ClosureRuntime runtime, Object[] frame);
+}
@@ -0,0 +1,22 @@
+package edu.montana.csci.csci468.closure;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+public class ClosureCatScriptProgram extends CatScriptProgram {
+
+    private final StatementClosure main;
+    private final int globalSlots;
+
+    public ClosureCatScriptProgram(StatementClosure main, int globalSlots) {
+        this.main = main;
+        this.globalSlots = globalSlots;
+    }
+
+    // closures keep their own globals and only print through the runtime
+    @Override
+    public void execute(CatscriptRuntime runtime) {
+        ClosureRuntime closureRuntime = new ClosureRuntime(runtime, globalSlots);
+        main.execute(closureRuntime, closureRuntime.getGlobals());
+    }
+}
@@ -0,0 +1,76 @@
+package edu.montana.csci.csci468.closure;
+
+import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.Statement;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Converts a verified program into a tree of pre-bound lambdas.  Types,
+// variable slots and function targets are all resolved while compiling, so
+// running the result involves no type checks or symbol lookups, and unlike
+// the bytecode backend no classes are generated or loaded.
+public class ClosureCompiler {
+
+    private static final StatementClosure NO_OP = (runtime, frame) -> false;
+
+    private final CatScriptProgram program;
+    private final Map<String, CompiledFunction> functions = new HashMap<>();
+
+    public ClosureCompiler(CatScriptProgram program) {
+        this.program = program;
+    }
+
+    public CatScriptProgram compileToClosures() {
+        for (Statement statement : program.getStatements()) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                FunctionDefinitionStatement function = (FunctionDefinitionStatement) statement;
+                functions.put(function.getName(), new CompiledFunction(function.getFrameSize()));
+            }
+        }
+        StatementClosure main = program.compileClosure(this);
+        return new ClosureCatScriptProgram(main, program.getGlobalSlots());
+    }
+
+    public CompiledFunction getFunction(String name) {
+        return functions.get(name);
+    }
+
+    public StatementClosure noOp() {
+        return NO_OP;
+    }
+
+    public StatementClosure block(List<Statement> statements) {
+        StatementClosure[] closures = new StatementClosure[statements.size()];
+        int i = 0;
+        for (Statement statement : statements) {
+            closures[i++] = statement.compileClosure(this);
+        }
+        if (closures.length == 0) {
+            return NO_OP;
+        }
+        if (closures.length == 1) {
+            return closures[0];
+        }
+        return (runtime, frame) -> {
+            for (StatementClosure closure : closures) {
+                if (closure.execute(runtime, frame)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    public ObjectClosure[] compileAll(List<Expression> expressions) {
+        ObjectClosure[] closures = new ObjectClosure[expressions.size()];
+        int i = 0;
+        for (Expression expression : expressions) {
+            closures[i++] = expression.compileClosure(this);
+        }
+        return closures;
+    }
+}
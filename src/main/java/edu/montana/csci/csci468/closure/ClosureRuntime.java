@@ -0,0 +1,34 @@
+package edu.montana.csci.csci468.closure;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+
+public class ClosureRuntime {
+
+    // prints go out through the runtime of the run
+    private final CatscriptRuntime runtime;
+    private final Object[] globals;
+    private Object returnValue;
+
+    public ClosureRuntime(CatscriptRuntime runtime, int globalSlots) {
+        this.runtime = runtime;
+        this.globals = new Object[globalSlots];
+    }
+
+    public Object[] getGlobals() {
+        return globals;
+    }
+
+    public void print(Object value) {
+        runtime.print(value);
+    }
+
+    public void setReturnValue(Object value) {
+        returnValue = value;
+    }
+
+    public Object takeReturnValue() {
+        Object value = returnValue;
+        returnValue = null;
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.montana.csci.csci468.closure;
+
+public class CompiledFunction {
+
+    private final int frameSize;
+    private StatementClosure body;
+
+    public CompiledFunction(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    // the body is set after the function is created so that recursive and
+    // forward calls can be bound to the function before it is compiled
+    public void setBody(StatementClosure body) {
+        this.body = body;
+    }
+
+    // the arguments are passed in the first slots of the frame
+    public Object invoke(ClosureRuntime runtime, Object[] frame) {
+        if (body.execute(runtime, frame)) {
+            return runtime.takeReturnValue();
+        }
+        return null;
+    }
+}
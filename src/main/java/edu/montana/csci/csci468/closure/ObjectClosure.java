@@ -0,0 +1,6 @@
+package edu.montana.csci.csci468.closure;
+
+@FunctionalInterface
+public interface ObjectClosure {
+    Object evaluate(ClosureRuntime runtime, Object[] frame);
+}
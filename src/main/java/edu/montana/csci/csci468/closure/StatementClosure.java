@@ -0,0 +1,8 @@
+package edu.montana.csci.csci468.closure;
+
+@FunctionalInterface
+public interface StatementClosure {
+    // returns true when a return statement has completed, in which case the
+    // value is available from ClosureRuntime.takeReturnValue()
+    boolean execute(ClosureRuntime runtime, Object[] frame);
+}
@@ -0,0 +1,30 @@
+package edu.montana.csci.csci468.eval;
+
+public class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ExecutionBudget.Limit limit;
+
+    public BudgetExceededException(ExecutionBudget.Limit limit, long value) {
+        super("Execution stopped: " + describe(limit) + " limit of " + value + " reached");
+        this.limit = limit;
+    }
+
+    public ExecutionBudget.Limit getLimit() {
+        return limit;
+    }
+
+    private static String describe(ExecutionBudget.Limit limit) {
+        switch (limit) {
+            case LOOP_ITERATIONS:
+                return "loop iteration";
+            case CALL_DEPTH:
+                return "call depth";
+            case OUTPUT:
+                return "output";
+            default:
+                return "wall time (ms)";
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package edu.montana.csci.csci468.eval;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Counts what a run uses against its ExecutionBudget.  Every runtime has one:
+// the interpreter counts through it, and compiled code calls the runtime it
+// is handed when a loop runs out of iterations and before it makes a call.
+//
+// An interpreted loop iteration is a decrement and a compare, with no limit
+// set the counter starts at its maximum and never runs out.  Compiled loops
+// take their iterations in batches of LOOP_BATCH and count them down in a
+// local, handing back what they did not use when they end.  Calls are
+// counted with CallDepth links: compiled functions are called with theirs,
+// the runtime keeps the one of the interpreted call in progress, and the
+// depth below is checked against the budget when it is linked, as a run
+// starts or the first time it calls that deep.  Compiled code only does any
+// of this when it is compiled with CompilerOptions.setMetered().  Nothing
+// reads the clock: a timer marks the run as expired at its deadline, and the
+// checks see that through the volatile fields they read anyway.  It also
+// cuts the CallDepth links, so code that only calls sees it on its next call.
+public final class BudgetMeter {
+
+    // a cancelled deadline leaves the queue at once, rather than keeping its
+    // meter and runtime until it would have run out
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    // iterations a compiled loop takes at a time, and so between its checks
+    // of the deadline
+    static final int LOOP_BATCH = 1024;
+    // past this few iterations left, compiled loops take one at a time.
+    // Batches are only held while a loop runs, so a loop is refused before
+    // the budget is used up only if more than EXACT_BELOW / LOOP_BATCH loops
+    // hold one at once: loops nested that deep, counting the loops of the
+    // functions they call
+    static final long EXACT_BELOW = 64L * LOOP_BATCH;
+
+    // depths linked when a run starts, a compiled call deeper than this goes
+    // to the meter the first time a run makes it
+    static final int LINKED_AHEAD = 32;
+
+    private long iterationsLeft = Long.MAX_VALUE;
+    // the call depth limit, or -1 once the deadline has passed
+    private volatile int callLimit = Integer.MAX_VALUE;
+    private volatile boolean expired;
+    private long outputLeft = Long.MAX_VALUE;
+    private ExecutionBudget budget;
+    // identifies the run a pending deadline belongs to
+    private int run;
+    private ScheduledFuture<?> deadline;
+    // where the calls of compiled top level code start from
+    private final CallDepth topLevel;
+
+    BudgetMeter(CatscriptRuntime runtime) {
+        topLevel = new CallDepth(runtime, this, null);
+        linkAhead();
+    }
+
+    // restarts every counter for a new run, a pending deadline of the last
+    // run is cancelled
+    public synchronized void start(ExecutionBudget budget) {
+        this.budget = budget;
+        iterationsLeft = budget.getMaxLoopIterations();
+        callLimit = budget.getMaxCallDepth();
+        expired = false;
+        outputLeft = budget.getMaxOutputChars();
+        run++;
+        // depths linked in earlier runs are kept as far as this budget allows
+        CallDepth depth = topLevel;
+        for (int i = 0; depth != null && i < callLimit; i++) {
+            depth = depth.linked();
+        }
+        if (depth != null) {
+            depth.unlink();
+        }
+        linkAhead();
+        finish();
+        if (budget.getMaxWallTimeMillis() != Long.MAX_VALUE) {
+            int thisRun = run;
+            deadline = TIMER.schedule(() -> expire(thisRun), budget.getMaxWallTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // cancels the deadline of the run, which should be called once it is done
+    // so a runtime is not held by the timer until then
+    public synchronized void finish() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
+    // links the first depths the budget allows before compiled code runs,
+    // so calls that shallow never reach the meter
+    private void linkAhead() {
+        CallDepth depth = topLevel;
+        for (int i = 0; i < LINKED_AHEAD && i < callLimit; i++) {
+            CallDepth next = depth.linked();
+            if (next == null) {
+                next = new CallDepth(depth.getRuntime(), this, depth);
+                depth.link(next);
+            }
+            depth = next;
+        }
+    }
+
+    private synchronized void expire(int expiredRun) {
+        if (expiredRun == run) {
+            expired = true;
+            callLimit = -1;
+            for (CallDepth depth = topLevel; depth != null; depth = depth.unlink()) {
+            }
+        }
+    }
+
+    public void countLoopIteration() {
+        if (--iterationsLeft < 0) {
+            loopIterationsExceeded();
+        }
+        checkWallTime();
+    }
+
+    // hands a compiled loop iterations to count down, the one it is starting
+    // and the returned number more.  Batches are taken and handed back in
+    // call order, so the loops of a called function get what the caller's
+    // loops left, as the interpreter counts
+    public int reserveLoopIterations() {
+        checkWallTime();
+        long left = iterationsLeft;
+        if (left <= 0) {
+            loopIterationsExceeded();
+        }
+        int batch = left >= EXACT_BELOW ? LOOP_BATCH : 1;
+        iterationsLeft = left - batch;
+        return batch - 1;
+    }
+
+    // a compiled loop that ends, or is left by a return, hands back what it
+    // did not run
+    public void refundLoopIterations(int unused) {
+        iterationsLeft += unused;
+    }
+
+    // code compiled without metering can't count loops, calls or time
+    public void checkUnmetered() {
+        if (budget != null && (budget.getMaxLoopIterations() != Long.MAX_VALUE
+                || budget.getMaxCallDepth() != Integer.MAX_VALUE
+                || budget.getMaxWallTimeMillis() != Long.MAX_VALUE)) {
+            throw new IllegalStateException("the program was compiled without metering, " +
+                    "it can only be held to an output limit");
+        }
+    }
+
+    private void loopIterationsExceeded() {
+        throw new BudgetExceededException(ExecutionBudget.Limit.LOOP_ITERATIONS, budget.getMaxLoopIterations());
+    }
+
+    public void checkWallTime() {
+        if (expired) {
+            throw wallTimeExceeded();
+        }
+    }
+
+    CallDepth getTopLevel() {
+        return topLevel;
+    }
+
+    // links the depth below the given one, if the budget allows a call there
+    CallDepth deeper(CallDepth from) {
+        checkCallDepth(from.getDepth() + 1);
+        CallDepth next = new CallDepth(from.getRuntime(), this, from);
+        from.link(next);
+        // the deadline may have passed and the links been cut while this one
+        // was made
+        checkWallTime();
+        return next;
+    }
+
+    private void checkCallDepth(int depth) {
+        if (depth > callLimit) {
+            if (expired) {
+                throw wallTimeExceeded();
+            }
+            throw new BudgetExceededException(ExecutionBudget.Limit.CALL_DEPTH, budget.getMaxCallDepth());
+        }
+    }
+
+    public void countOutput(int chars) {
+        outputLeft -= chars;
+        if (outputLeft < 0) {
+            throw new BudgetExceededException(ExecutionBudget.Limit.OUTPUT, budget.getMaxOutputChars());
+        }
+    }
+
+    private BudgetExceededException wallTimeExceeded() {
+        return new BudgetExceededException(ExecutionBudget.Limit.WALL_TIME, budget.getMaxWallTimeMillis());
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "catscript-budget-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    // deadlines waiting on the timer, for tests
+    static int pendingDeadlines() {
+        return TIMER.getQueue().size();
+    }
+}
@@ -0,0 +1,74 @@
+package edu.montana.csci.csci468.eval;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// One depth of the calls of a run, for metered compiled code.  A metered
+// compiled function is called with the CallDepth it runs at in place of the
+// runtime, and a call it makes takes the one below.  That is linked the first
+// time a run calls that deep, once the meter has checked the budget, so from
+// then on a call is a single load and the callee has no depth to count or
+// compare.  The meter cuts the links when a run starts and when its deadline
+// passes, and the next call goes back to the meter, see BudgetMeter.
+public final class CallDepth {
+
+    private static final VarHandle DEEPER;
+
+    static {
+        try {
+            DEEPER = MethodHandles.lookup().findVarHandle(CallDepth.class, "deeper", CallDepth.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final CatscriptRuntime runtime;
+    private final BudgetMeter meter;
+    private final int depth;
+    // the depth above, null at the top level
+    private final CallDepth shallower;
+    // read opaquely, so a link cut by the budget timer is seen by the next
+    // call without the cost of a volatile read
+    @SuppressWarnings("unused")
+    private CallDepth deeper;
+
+    CallDepth(CatscriptRuntime runtime, BudgetMeter meter, CallDepth shallower) {
+        this.runtime = runtime;
+        this.meter = meter;
+        this.shallower = shallower;
+        this.depth = shallower == null ? 0 : shallower.depth + 1;
+    }
+
+    public CatscriptRuntime getRuntime() {
+        return runtime;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // the depth of the caller, where a call returns to
+    public CallDepth shallower() {
+        return shallower;
+    }
+
+    // the depth a call made from this one runs at
+    public CallDepth deeper() {
+        CallDepth next = (CallDepth) DEEPER.getOpaque(this);
+        return next != null ? next : meter.deeper(this);
+    }
+
+    // the next one down if it is linked, or null
+    CallDepth linked() {
+        return (CallDepth) DEEPER.getVolatile(this);
+    }
+
+    void link(CallDepth next) {
+        DEEPER.setVolatile(this, next);
+    }
+
+    // the next one down, which is no longer linked
+    CallDepth unlink() {
+        return (CallDepth) DEEPER.getAndSet(this, null);
+    }
+}
@@ -1,45 +1,231 @@
 package edu.montana.csci.csci468.eval;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
 
+import java.util.Arrays;
+
+// Everything that changes while a program runs: variables, call frames and
+// output.  A verified program is only read while it runs, so one program can
+// be run on many runtimes at once, and a runtime can be reset and used for
+// another run (see RuntimePool).
 public class CatscriptRuntime {
-    LinkedList<Map<String, Object>> scopes = new LinkedList<>();
+
+    // variables are resolved to a (depth, slot) pair during verification, so
+    // lookups here are plain array loads.  Functions can only be declared at
+    // the top level of a program, so the lexical parent of every function
+    // frame is the global frame.
+    private Object[] globals;
+    private Object[] frame;
+    private static final ExecutionBudget UNLIMITED = new ExecutionBudget();
+    private final ReturnException returnSignal = new ReturnException();
+    private final TieredCompiler tieredCompiler;
+    // prints go to the runtime's own buffer unless a sink is set.  A reset
+    // keeps a buffer up to MAX_KEPT_BUFFER chars and replaces a larger one, so
+    // one long run does not pin its output in a pooled runtime
+    static final int MAX_KEPT_BUFFER = 16 * 1024;
+    private StringBuilder buffer = new StringBuilder();
+    private final OutputSink bufferSink = value -> buffer.append(value).append('\n');
+    private OutputSink output;
+
+    // frames of the calls in progress, kept for the next calls at the same
+    // depth
+    private Object[][] frames = new Object[8][];
+    private int callDepth;
+
+    // runs are unlimited until a budget is set
+    private final BudgetMeter meter = new BudgetMeter(this);
+    // the depth of the interpreted call in progress, moved as frames are
+    // pushed and popped
+    private CallDepth calling = meter.getTopLevel();
 
     public CatscriptRuntime(){
-        HashMap<String, Object> globalScope = new HashMap<>();
-        scopes.push(globalScope);
+        this(0);
+    }
+
+    public CatscriptRuntime(int globalSlots){
+        this(globalSlots, null);
+    }
+
+    public CatscriptRuntime(int globalSlots, TieredCompiler tieredCompiler){
+        this(globalSlots, tieredCompiler, null);
     }
 
-    public Object getValue(String name) {
-        Iterator<Map<String, Object>> mapIterator = scopes.descendingIterator();
-        while (mapIterator.hasNext()) {
-            Map<String, Object> scope = mapIterator.next();
-            if (scope.containsKey(name)) {
-                return scope.get(name);
-            }
+    // prints go to the given sink, or to getOutput() if it is null
+    public CatscriptRuntime(int globalSlots, TieredCompiler tieredCompiler, OutputSink output){
+        globals = new Object[globalSlots];
+        frame = globals;
+        this.tieredCompiler = tieredCompiler;
+        this.output = output != null ? output : bufferSink;
+    }
+
+    /**
+     * Gets the runtime ready for another run with the given number of global
+     * slots, printing to its own buffer again.  Arrays and the output buffer
+     * are cleared and kept, so a reset allocates nothing unless the program
+     * needs more globals than any run before it or the last run printed more
+     * than MAX_KEPT_BUFFER chars.
+     */
+    public void reset(int globalSlots) {
+        reset();
+        ensureGlobalSlots(globalSlots);
+    }
+
+    /**
+     * Clears what the last run left behind: its globals, frames, output and
+     * output sink, and its budget.  The global slots are kept for the next
+     * run.
+     */
+    public void reset() {
+        Arrays.fill(globals, null);
+        frame = globals;
+        for (int i = 0; i < callDepth; i++) {
+            Arrays.fill(frames[i], null);
         }
-        return null;
+        callDepth = 0;
+        if (buffer.capacity() > MAX_KEPT_BUFFER) {
+            buffer = new StringBuilder();
+        } else {
+            buffer.setLength(0);
+        }
+        returnSignal.takeValue();
+        output = bufferSink;
+        meter.start(UNLIMITED);
+        calling = meter.getTopLevel();
     }
 
-    public void setValue(String variableName, Object val) {
-        for (Map<String, Object> scope : scopes) {
-            if (scope.containsKey(variableName)) {
-                scope.put(variableName, val);
-                return;
-            }
+    // grows the globals of a runtime that was reset for a program with more
+    void ensureGlobalSlots(int globalSlots) {
+        if (globals.length < globalSlots) {
+            globals = new Object[globalSlots];
+            frame = globals;
         }
-        scopes.peekLast().put(variableName, val);
     }
 
-    public void pushScope() {
-        scopes.push(new HashMap<>());
+    // starts counting this run against the budget
+    public void setBudget(ExecutionBudget budget) {
+        meter.start(budget);
+        calling = meter.getTopLevel();
+    }
+
+    // stops counting the run's wall time once it is done
+    public void finishBudget() {
+        meter.finish();
+    }
+
+    public void countLoopIteration() {
+        meter.countLoopIteration();
+    }
+
+    // compiled code is handed the runtime of its run and calls these, see
+    // BudgetMeter
+    public int reserveLoopIterations() {
+        return meter.reserveLoopIterations();
+    }
+
+    public void refundLoopIterations(int unused) {
+        meter.refundLoopIterations(unused);
+    }
+
+    // where the calls of compiled top level code start from, at depth 0
+    public CallDepth getTopLevel() {
+        return meter.getTopLevel();
+    }
+
+    // the depth a compiled function called from interpreted code runs at
+    public CallDepth nextCallDepth() {
+        return calling.deeper();
+    }
+
+    public void checkUnmetered() {
+        meter.checkUnmetered();
+    }
+
+    public TieredCompiler getTieredCompiler() {
+        return tieredCompiler;
+    }
+
+    public Object getValue(int depth, int slot) {
+        if (depth == 0) {
+            return frame[slot];
+        }
+        return globals[slot];
+    }
+
+    public void setValue(int depth, int slot, Object val) {
+        if (depth == 0) {
+            frame[slot] = val;
+        } else {
+            globals[slot] = val;
+        }
+    }
+
+    // frames are handed out and released in call order, and a released
+    // frame is cleared so it does not keep the values of the last call alive
+    public Object[] acquireFrame(int size) {
+        if (callDepth == frames.length) {
+            frames = Arrays.copyOf(frames, callDepth * 2);
+        }
+        Object[] newFrame = frames[callDepth];
+        if (newFrame == null || newFrame.length < size) {
+            newFrame = new Object[size];
+            frames[callDepth] = newFrame;
+        }
+        callDepth++;
+        return newFrame;
+    }
+
+    public void releaseFrame(Object[] released) {
+        Arrays.fill(released, null);
+        callDepth--;
+    }
+
+    // calls in progress, counting the one whose frame was acquired last
+    public int getCallDepth() {
+        return callDepth;
+    }
+
+    // interpreted calls count against the call depth here, compiled ones
+    // count themselves
+    public Object[] pushFrame(Object[] newFrame) {
+        calling = calling.deeper();
+        Object[] previous = frame;
+        frame = newFrame;
+        return previous;
+    }
+
+    public void popFrame(Object[] previous) {
+        calling = calling.shallower();
+        frame = previous;
+    }
+
+    // the value is taken by the invoking function before any other return
+    // statement can run, so the signal can be shared by every call and does
+    // not keep the value alive once the call is done
+    public ReturnException returnWith(Object value) {
+        return returnSignal.withValue(value);
+    }
+
+    public void print(Object value) {
+        String text = String.valueOf(value);
+        meter.countOutput(text.length() + 1);
+        output.print(text);
+    }
+
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    // what was printed to the runtime's own buffer
+    public String getOutput() {
+        return buffer.toString();
+    }
+
+    int getBufferCapacity() {
+        return buffer.capacity();
     }
 
-    public void popScope() {
-        scopes.pop();
+    Object getPendingReturnValue() {
+        return returnSignal.getValue();
     }
 
 }
@@ -0,0 +1,68 @@
+package edu.montana.csci.csci468.eval;
+
+// Limits for one run of a program.  Every limit is off by default, a run
+// that goes over one is stopped with a BudgetExceededException.  The limits
+// are read when a run starts, so changing them does not affect runs that
+// are already going.
+public class ExecutionBudget {
+
+    public enum Limit {
+        LOOP_ITERATIONS,
+        CALL_DEPTH,
+        OUTPUT,
+        WALL_TIME
+    }
+
+    private long maxLoopIterations = Long.MAX_VALUE;
+    private int maxCallDepth = Integer.MAX_VALUE;
+    private long maxOutputChars = Long.MAX_VALUE;
+    private long maxWallTimeMillis = Long.MAX_VALUE;
+
+    // what a server gives a script it knows nothing about
+    public static ExecutionBudget untrusted() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(50_000_000);
+        budget.setMaxCallDepth(1_000);
+        budget.setMaxOutputChars(16 * 1024 * 1024);
+        budget.setMaxWallTimeMillis(5_000);
+        return budget;
+    }
+
+    // iterations of every for loop in the run together
+    public long getMaxLoopIterations() {
+        return maxLoopIterations;
+    }
+
+    public void setMaxLoopIterations(long maxLoopIterations) {
+        this.maxLoopIterations = maxLoopIterations;
+    }
+
+    // calls in progress at once, the top level is depth 0
+    public int getMaxCallDepth() {
+        return maxCallDepth;
+    }
+
+    public void setMaxCallDepth(int maxCallDepth) {
+        this.maxCallDepth = maxCallDepth;
+    }
+
+    // printed chars including line breaks, which is the number of bytes for
+    // ASCII output
+    public long getMaxOutputChars() {
+        return maxOutputChars;
+    }
+
+    public void setMaxOutputChars(long maxOutputChars) {
+        this.maxOutputChars = maxOutputChars;
+    }
+
+    // a timer marks the run as expired, which it notices at its next call or
+    // loop iteration (every 1024th in compiled loops), see BudgetMeter
+    public long getMaxWallTimeMillis() {
+        return maxWallTimeMillis;
+    }
+
+    public void setMaxWallTimeMillis(long maxWallTimeMillis) {
+        this.maxWallTimeMillis = maxWallTimeMillis;
+    }
+}
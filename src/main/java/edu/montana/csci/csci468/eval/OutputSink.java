@@ -0,0 +1,59 @@
+package edu.montana.csci.csci468.eval;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+// Where the print statements of a running program go, one call per print.
+// Sinks add the line break themselves, so a sink that hands out lines does
+// not have to strip it again.
+@FunctionalInterface
+public interface OutputSink {
+
+    void print(Object value);
+
+    // pushes out anything the sink still buffers, called once a run is done
+    default void flush() {
+    }
+
+    static OutputSink of(StringBuilder buffer) {
+        return value -> buffer.append(value).append('\n');
+    }
+
+    // a failed write is rethrown as an UncheckedIOException, which ends the
+    // run, so a client that went away stops the program
+    static OutputSink of(Writer writer) {
+        return new OutputSink() {
+            @Override
+            public void print(Object value) {
+                try {
+                    writer.write(String.valueOf(value));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void flush() {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    // UTF-8, buffered until flush() or until the buffer fills
+    static OutputSink of(OutputStream stream) {
+        return new StreamOutputSink(stream);
+    }
+
+    // each printed line, without its line break
+    static OutputSink lines(Consumer<String> lines) {
+        return value -> lines.accept(String.valueOf(value));
+    }
+}
@@ -1,11 +1,28 @@
 package edu.montana.csci.csci468.eval;
 
+// Control flow signal for return statements in the interpreter.  It does not
+// capture a stack trace, and a single instance is reused by each runtime (see
+// CatscriptRuntime.returnWith()) so a function return allocates nothing.
 public class ReturnException extends RuntimeException {
     private Object value;
+    public ReturnException() {
+        super(null, null, false, false);
+    }
     public ReturnException(Object value) {
+        this();
+        this.value = value;
+    }
+    ReturnException withValue(Object value) {
         this.value = value;
+        return this;
     }
     public Object getValue() {
         return value;
     }
+    // the value, cleared from the signal so it is not kept past its call
+    public Object takeValue() {
+        Object taken = value;
+        value = null;
+        return taken;
+    }
 }
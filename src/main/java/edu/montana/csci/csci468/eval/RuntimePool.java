@@ -0,0 +1,93 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps idle runtimes for running verified programs, so a server running the
+// same programs over and over reuses their arrays and output buffers instead
+// of allocating new ones for every request.  At most maxIdle runtimes are
+// kept, runtimes released beyond that are dropped.
+public class RuntimePool {
+
+    private static final ExecutionBudget UNLIMITED = new ExecutionBudget();
+
+    private final ArrayDeque<CatscriptRuntime> idle;
+    private final int maxIdle;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    public RuntimePool(int maxIdle) {
+        this.maxIdle = maxIdle;
+        this.idle = new ArrayDeque<>(maxIdle);
+    }
+
+    // the runtime has at least the given number of globals, and nothing of
+    // the run it was last used for
+    public CatscriptRuntime acquire(int globalSlots) {
+        CatscriptRuntime runtime;
+        synchronized (idle) {
+            runtime = idle.pollFirst();
+        }
+        if (runtime == null) {
+            created.incrementAndGet();
+            return new CatscriptRuntime(globalSlots);
+        }
+        reused.incrementAndGet();
+        runtime.ensureGlobalSlots(globalSlots);
+        return runtime;
+    }
+
+    // the runtime is reset as it is released, so an idle one doesn't keep
+    // the last run's values, output or sink
+    public void release(CatscriptRuntime runtime) {
+        runtime.reset();
+        synchronized (idle) {
+            if (idle.size() < maxIdle) {
+                idle.offerFirst(runtime);
+            }
+        }
+    }
+
+    // runs the program on a pooled runtime and returns what it printed.  The
+    // program is only read, so it can be shared by concurrent calls
+    public String execute(CatScriptProgram program) {
+        CatscriptRuntime runtime = acquire(program.getGlobalSlots());
+        try {
+            program.execute(runtime);
+            return runtime.getOutput();
+        } finally {
+            release(runtime);
+        }
+    }
+
+    // like execute(program), but prints go to the sink as they happen, and
+    // the sink is flushed when the program is done
+    public void execute(CatScriptProgram program, OutputSink output) {
+        execute(program, output, UNLIMITED);
+    }
+
+    // like execute(program, output), stopping the program with a
+    // BudgetExceededException if it goes over the budget
+    public void execute(CatScriptProgram program, OutputSink output, ExecutionBudget budget) {
+        CatscriptRuntime runtime = acquire(program.getGlobalSlots());
+        try {
+            runtime.setOutput(output);
+            runtime.setBudget(budget);
+            program.execute(runtime);
+            output.flush();
+        } finally {
+            runtime.finishBudget();
+            release(runtime);
+        }
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getReused() {
+        return reused.get();
+    }
+}
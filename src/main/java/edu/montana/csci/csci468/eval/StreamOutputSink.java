@@ -0,0 +1,123 @@
+package edu.montana.csci.csci468.eval;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// Writes printed lines to a stream as UTF-8 through a byte buffer of its
+// own.  Most printed values are numbers and plain ASCII text, which are
+// copied into the buffer char by char instead of going through an encoder.
+//
+// The buffer is pushed out and the stream flushed by a print that comes more
+// than MAX_DELAY_NANOS after the one before it, or that finds the buffer last
+// pushed out that long ago.  A program that prints now and then has each line
+// sent as it is printed, the first one included, and one that prints a lot is
+// sent in buffer sized writes at most MAX_DELAY_NANOS apart.  Reading the
+// clock costs about as much as a short print, so while prints come fast it is
+// read every few prints only, up to MAX_CHECK_INTERVAL: a program that slows
+// down all at once can have that many lines wait for the next reading.  Lines
+// printed just before a long silence wait for the next print or flush().
+final class StreamOutputSink implements OutputSink {
+
+    static final long MAX_DELAY_NANOS = 5_000_000;
+    // while readings come closer than this, the clock is read half as often
+    private static final long CHECK_NANOS = 1_000_000;
+    private static final int MAX_CHECK_INTERVAL = 64;
+
+    private final OutputStream stream;
+    private final byte[] buffer = new byte[8192];
+    private int count;
+    private int checkInterval = 1;
+    private int printsUntilCheck = 1;
+    private long lastCheck;
+    private long lastPush;
+
+    StreamOutputSink(OutputStream stream) {
+        this.stream = stream;
+        // the first print goes straight out
+        lastCheck = System.nanoTime() - MAX_DELAY_NANOS - 1;
+        lastPush = lastCheck;
+    }
+
+    @Override
+    public void print(Object value) {
+        String text = String.valueOf(value);
+        int length = text.length();
+        // room for the text and the line break
+        if (length >= buffer.length - count) {
+            drain();
+        }
+        if (length >= buffer.length || !copyAscii(text, length)) {
+            write(text.getBytes(StandardCharsets.UTF_8));
+            if (count == buffer.length) {
+                drain();
+            }
+        }
+        buffer[count++] = '\n';
+        if (--printsUntilCheck == 0) {
+            checkClock();
+        }
+    }
+
+    private void checkClock() {
+        long now = System.nanoTime();
+        long sinceCheck = now - lastCheck;
+        if (sinceCheck > MAX_DELAY_NANOS || now - lastPush > MAX_DELAY_NANOS) {
+            flush();
+            lastPush = now;
+        }
+        checkInterval = sinceCheck < CHECK_NANOS ? Math.min(checkInterval * 2, MAX_CHECK_INTERVAL) : 1;
+        printsUntilCheck = checkInterval;
+        lastCheck = now;
+    }
+
+    // leaves the buffer as it was if the text is not all ASCII
+    private boolean copyAscii(String text, int length) {
+        int start = count;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                count = start;
+                return false;
+            }
+            buffer[count++] = (byte) c;
+        }
+        return true;
+    }
+
+    private void write(byte[] bytes) {
+        if (bytes.length > buffer.length - count) {
+            drain();
+        }
+        if (bytes.length >= buffer.length) {
+            try {
+                stream.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+    }
+
+    private void drain() {
+        try {
+            stream.write(buffer, 0, count);
+            count = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        try {
+            stream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -6,7 +6,10 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 public class JSTranspiler {
 
@@ -19,15 +22,29 @@ public class JSTranspiler {
     }
 
     public String evaluate() {
+        StringWriter writer = new StringWriter();
+        evaluate(writer);
+        return writer.toString();
+    }
+
+    // the script engine prints straight to the writer, and a script error
+    // is written there in place of the rest of the output
+    public void evaluate(Writer writer) {
         try {
             ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
             ScriptContext context = engine.getContext();
-            StringWriter writer = new StringWriter();
             context.setWriter(writer);
             engine.eval(javascriptSource);
-            return writer.toString();
+            writer.flush();
         } catch (ScriptException e) {
-            return e.getMessage();
+            try {
+                writer.write(e.getMessage());
+                writer.flush();
+            } catch (IOException io) {
+                throw new UncheckedIOException(io);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
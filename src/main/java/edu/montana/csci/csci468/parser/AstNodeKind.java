@@ -0,0 +1,64 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.expressions.*;
+import edu.montana.csci.csci468.parser.statements.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// The node types of the binary AST format, a node is written as the ordinal
+// of its kind so new kinds go at the end (and AstWriter.VERSION goes up).
+// Syntax error nodes have no kind, programs with errors are never written.
+enum AstNodeKind {
+    PROGRAM(CatScriptProgram.class, CatScriptProgram::read),
+    ASSIGNMENT(AssignmentStatement.class, AssignmentStatement::read),
+    FOR(ForStatement.class, ForStatement::read),
+    FUNCTION_CALL_STATEMENT(FunctionCallStatement.class, FunctionCallStatement::read),
+    FUNCTION_DEFINITION(FunctionDefinitionStatement.class, FunctionDefinitionStatement::read),
+    IF(IfStatement.class, IfStatement::read),
+    PRINT(PrintStatement.class, PrintStatement::read),
+    RETURN(ReturnStatement.class, ReturnStatement::read),
+    VARIABLE(VariableStatement.class, VariableStatement::read),
+    ADDITIVE(AdditiveExpression.class, AdditiveExpression::read),
+    BOOLEAN_LITERAL(BooleanLiteralExpression.class, BooleanLiteralExpression::read),
+    COMPARISON(ComparisonExpression.class, ComparisonExpression::read),
+    EQUALITY(EqualityExpression.class, EqualityExpression::read),
+    FACTOR(FactorExpression.class, FactorExpression::read),
+    FUNCTION_CALL(FunctionCallExpression.class, FunctionCallExpression::read),
+    IDENTIFIER(IdentifierExpression.class, IdentifierExpression::read),
+    INTEGER_LITERAL(IntegerLiteralExpression.class, IntegerLiteralExpression::read),
+    LIST_LITERAL(ListLiteralExpression.class, ListLiteralExpression::read),
+    NULL_LITERAL(NullLiteralExpression.class, NullLiteralExpression::read),
+    PARENTHESIZED(ParenthesizedExpression.class, ParenthesizedExpression::read),
+    STRING_LITERAL(StringLiteralExpression.class, StringLiteralExpression::read),
+    TYPE_LITERAL(TypeLiteral.class, TypeLiteral::read),
+    UNARY(UnaryExpression.class, UnaryExpression::read);
+
+    private static final Map<Class<?>, AstNodeKind> BY_TYPE = new HashMap<>();
+    static {
+        for (AstNodeKind kind : values()) {
+            BY_TYPE.put(kind.type, kind);
+        }
+    }
+
+    private final Class<? extends ParseElement> type;
+    private final Function<AstReader, ParseElement> reader;
+
+    AstNodeKind(Class<? extends ParseElement> type, Function<AstReader, ParseElement> reader) {
+        this.type = type;
+        this.reader = reader;
+    }
+
+    ParseElement read(AstReader in) {
+        return reader.apply(in);
+    }
+
+    static AstNodeKind of(ParseElement element) {
+        AstNodeKind kind = BY_TYPE.get(element.getClass());
+        if (kind != null) {
+            return kind;
+        }
+        throw new IllegalArgumentException("No AST kind for " + element.getClass().getName());
+    }
+}
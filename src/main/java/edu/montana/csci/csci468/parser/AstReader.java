@@ -0,0 +1,158 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.IdentifierPool;
+import edu.montana.csci.csci468.tokenizer.SourceText;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Rebuilds a verified program from the format AstWriter writes, without
+// tokenizing, parsing or verifying the source again.  Tokens read their
+// values from the source through a tokenizer that never scans it.
+public class AstReader {
+
+    static final CatscriptType[] BASIC_TYPES = {
+            CatscriptType.INT, CatscriptType.STRING, CatscriptType.BOOLEAN,
+            CatscriptType.OBJECT, CatscriptType.NULL, CatscriptType.VOID
+    };
+    private static final AstNodeKind[] KINDS = AstNodeKind.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final ByteBuffer buffer;
+    private final CatScriptTokenizer tokenizer;
+    private final Token[] tokens;
+    private final String[] strings;
+    private int tokenCount;
+    private int stringCount;
+    private FunctionDefinitionStatement function;
+
+    private AstReader(ByteBuffer buffer, String source) {
+        this.buffer = buffer;
+        this.tokens = new Token[tableSize(buffer)];
+        this.strings = new String[tableSize(buffer)];
+        this.tokenizer = CatScriptTokenizer.streamingFrom(SourceText.of(source), 0, 1, 0, new IdentifierPool());
+    }
+
+    // returns null if the buffer holds another format version or was written
+    // for another source, throws if it is not in this format at all
+    public static CatScriptProgram read(ByteBuffer buffer, String source, byte[] sourceHash) {
+        if (buffer.remaining() < 16 + sourceHash.length || buffer.getInt() != AstWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a CatScript AST");
+        }
+        if (buffer.getInt() != AstWriter.VERSION) {
+            return null;
+        }
+        for (byte b : sourceHash) {
+            if (buffer.get() != b) {
+                return null;
+            }
+        }
+        CatScriptProgram program = new AstReader(buffer, source).readNode();
+        program.compact();
+        return program;
+    }
+
+    // every entry takes more than a byte, so a damaged header can't make the
+    // tables larger than the buffer
+    private static int tableSize(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IllegalArgumentException("Damaged CatScript AST");
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends ParseElement> T readNode() {
+        byte kind = buffer.get();
+        if (kind < 0) {
+            return null;
+        }
+        Token start = readToken();
+        Token end = readToken();
+        ParseElement element = KINDS[kind].read(this);
+        element.setStart(start);
+        element.setEnd(end);
+        return (T) element;
+    }
+
+    public <T extends ParseElement> List<T> readNodes() {
+        int size = buffer.getInt();
+        List<T> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(readNode());
+        }
+        return elements;
+    }
+
+    public Token readToken() {
+        int index = buffer.getInt();
+        if (index < 0) {
+            return null;
+        }
+        if (index < tokenCount) {
+            return tokens[index];
+        }
+        TokenType type = TOKEN_TYPES[buffer.get()];
+        int start = buffer.getInt();
+        int end = buffer.getInt();
+        int line = buffer.getInt();
+        int lineOffset = buffer.getInt();
+        String value = type == TokenType.EOF || type == TokenType.ERROR ? readString() : null;
+        Token token = new Token(start, end, line, lineOffset, value, type, tokenizer);
+        tokens[tokenCount++] = token;
+        return token;
+    }
+
+    public String readString() {
+        int index = buffer.getInt();
+        if (index < 0) {
+            return null;
+        }
+        if (index < stringCount) {
+            return strings[index];
+        }
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        strings[stringCount++] = string;
+        return string;
+    }
+
+    public CatscriptType readType() {
+        byte tag = buffer.get();
+        if (tag < 0) {
+            return null;
+        }
+        if (tag == BASIC_TYPES.length) {
+            return CatscriptType.getListType(readType());
+        }
+        return BASIC_TYPES[tag];
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    // the function whose body is being read, for nodes that point at it
+    public FunctionDefinitionStatement getFunction() {
+        return function;
+    }
+
+    public FunctionDefinitionStatement setFunction(FunctionDefinitionStatement function) {
+        FunctionDefinitionStatement enclosing = this.function;
+        this.function = function;
+        return enclosing;
+    }
+}
@@ -0,0 +1,150 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Writes a verified program in the binary AST format read by AstReader.
+//
+// The header is a magic number, the format version, the hash of the source
+// and the sizes of the token and string tables.  Nodes follow in pre-order:
+// a kind, the start and end tokens, and whatever the node's write() puts
+// out, which includes its children and the types and slots verification
+// resolved.  Tokens and strings are written out the first time they appear
+// and referred to by their index in the tables after that.
+public class AstWriter {
+
+    static final int MAGIC = 0x43534153;
+    // bump whenever a node's write() or read() changes
+    public static final int VERSION = 1;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private final Map<Token, Integer> tokens = new IdentityHashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private AstWriter() {
+    }
+
+    public static byte[] write(CatScriptProgram program, byte[] sourceHash) {
+        AstWriter writer = new AstWriter();
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+        writer.ensureCapacity(sourceHash.length);
+        writer.buffer.put(sourceHash);
+        int tableSizes = writer.buffer.position();
+        writer.writeInt(0);
+        writer.writeInt(0);
+        writer.writeNode(program);
+        writer.buffer.putInt(tableSizes, writer.tokens.size());
+        writer.buffer.putInt(tableSizes + 4, writer.strings.size());
+        return Arrays.copyOf(writer.buffer.array(), writer.buffer.position());
+    }
+
+    public void writeNode(ParseElement element) {
+        if (element == null) {
+            writeByte(-1);
+            return;
+        }
+        writeByte(AstNodeKind.of(element).ordinal());
+        writeToken(element.getStart());
+        writeToken(element.getEnd());
+        element.write(this);
+    }
+
+    public void writeNodes(List<? extends ParseElement> elements) {
+        writeInt(elements.size());
+        for (ParseElement element : elements) {
+            writeNode(element);
+        }
+    }
+
+    public void writeToken(Token token) {
+        if (token == null) {
+            writeInt(-1);
+            return;
+        }
+        Integer index = tokens.get(token);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+        writeInt(tokens.size());
+        tokens.put(token, tokens.size());
+        writeByte(token.getType().ordinal());
+        writeInt(token.getStart());
+        writeInt(token.getEnd());
+        writeInt(token.getLine());
+        writeInt(token.getLineOffset());
+        // only synthetic values are kept, the rest are cut out of the source
+        if (token.getType() == TokenType.EOF || token.getType() == TokenType.ERROR) {
+            writeString(token.getStringValue());
+        }
+    }
+
+    public void writeString(String string) {
+        if (string == null) {
+            writeInt(-1);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+        writeInt(strings.size());
+        strings.put(string, strings.size());
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    public void writeType(CatscriptType type) {
+        if (type instanceof CatscriptType.ListType) {
+            writeByte(AstReader.BASIC_TYPES.length);
+            writeType(((CatscriptType.ListType) type).getComponentType());
+            return;
+        }
+        for (int i = 0; i < AstReader.BASIC_TYPES.length; i++) {
+            if (AstReader.BASIC_TYPES[i] == type) {
+                writeByte(i);
+                return;
+            }
+        }
+        if (type != null) {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+        writeByte(-1);
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer.put((byte) value);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() < needed) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
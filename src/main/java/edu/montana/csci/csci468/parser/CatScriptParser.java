@@ -8,7 +8,6 @@ import edu.montana.csci.csci468.tokenizer.TokenList;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
@@ -18,30 +17,107 @@ public class CatScriptParser {
     private TokenList tokens;
 
     public CatScriptProgram parse(String source) {
-        tokens = new CatScriptTokenizer(source).getTokens();
+        return parse(new CatScriptTokenizer(source));
+    }
 
-        // first parse an expression
+    // with a streaming tokenizer tokens are scanned as the parser reaches
+    // them, and let go of once the top level statement they are in is built
+    public CatScriptProgram parse(CatScriptTokenizer tokenizer) {
+        tokens = tokenizer.getTokens();
+        boolean releasing = tokenizer.isStreaming();
+        if (releasing) {
+            tokens.startReleasing();
+        }
         CatScriptProgram program = new CatScriptProgram();
         program.setStart(tokens.getCurrentToken());
-        Expression expression = null;
-        try {
-            expression = parseExpression();
-        } catch(RuntimeException re) {
-            // ignore :)
-        }
-        if (expression == null || tokens.hasMoreTokens()) {
-            tokens.reset();
+
+        // the source is an expression program only if an expression covers
+        // all of it, which most programs rule out at their first token
+        Expression expression = startsStatements() ? null : tryParseExpression();
+        if (expression != null && !tokens.hasMoreTokens()) {
+            program.setExpression(expression);
+        } else {
+            if (expression instanceof FunctionCallExpression) {
+                // a call with more tokens after it is parsed exactly the way
+                // a function call statement would parse it
+                Statement statement = new FunctionCallStatement((FunctionCallExpression) expression);
+                program.addStatement(statement);
+                if (releasing) {
+                    release(statement);
+                }
+            } else {
+                tokens.reset();
+            }
             while (tokens.hasMoreTokens()) {
-                program.addStatement(parseProgramStatement());
+                Statement statement = parseProgramStatement();
+                program.addStatement(statement);
+                if (releasing) {
+                    release(statement);
+                }
             }
-        } else {
-            program.setExpression(expression);
         }
 
         program.setEnd(tokens.getCurrentToken());
+        program.compact();
         return program;
     }
 
+    // the syntax errors of a statement keep the lines they point at, errors
+    // found once the parse is past it can't show theirs
+    private void release(Statement statement) {
+        for (ParseError error : statement.collectErrors()) {
+            if (error.getLocation() != null) {
+                error.getLocation().getLineContent();
+            }
+        }
+        tokens.releaseParsed();
+    }
+
+    // parses the source as an expression program, or returns null if it is
+    // not exactly one expression
+    CatScriptProgram parseExpressionProgram(CatScriptTokenizer tokenizer) {
+        tokens = tokenizer.getTokens();
+        CatScriptProgram program = new CatScriptProgram();
+        program.setStart(tokens.getCurrentToken());
+        Expression expression = startsStatements() ? null : tryParseExpression();
+        if (expression == null || tokens.hasMoreTokens()) {
+            return null;
+        }
+        program.setExpression(expression);
+        program.setEnd(tokens.getCurrentToken());
+        program.compact();
+        return program;
+    }
+
+    // one token of lookahead: a statement keyword parses as a one token
+    // syntax error expression, and an identifier as an identifier expression,
+    // so unless a binary operator (or the end) follows, the expression can't
+    // cover the whole source
+    private boolean startsStatements() {
+        if (tokens.match(VAR, PRINT, FOR, IF, FUNCTION, RETURN)) {
+            return !tokens.matchAhead(1, EQUAL_EQUAL, BANG_EQUAL, LESS, GREATER, LESS_EQUAL, GREATER_EQUAL,
+                    PLUS, MINUS, STAR, SLASH, EOF);
+        }
+        return tokens.match(IDENTIFIER) && tokens.matchAhead(1, EQUAL);
+    }
+
+    private Expression tryParseExpression() {
+        try {
+            return parseExpression();
+        } catch(RuntimeException re) {
+            // not an expression, the source is parsed as statements
+            return null;
+        }
+    }
+
+    // parses one top level statement from the current position of the tokens
+    Statement parseProgramStatement(TokenList tokens) {
+        this.tokens = tokens;
+        Statement statement = parseProgramStatement();
+        statement.compact();
+        return statement;
+    }
+
     public CatScriptProgram parseAsExpression(String source) {
         tokens = new CatScriptTokenizer(source).getTokens();
         CatScriptProgram program = new CatScriptProgram();
@@ -49,6 +125,7 @@ public class CatScriptParser {
         Expression expression = parseExpression();
         program.setExpression(expression);
         program.setEnd(tokens.getCurrentToken());
+        program.compact();
         return program;
     }
 
@@ -111,7 +188,7 @@ public class CatScriptParser {
             require(RIGHT_PAREN, forStatement);
 
             require(LEFT_BRACE, forStatement);
-            LinkedList<Statement> body = new LinkedList<>();
+            List<Statement> body = new ArrayList<>();
             do {
                body.add(parseStatement());
                if (!tokens.hasMoreTokens()) {
@@ -140,7 +217,7 @@ public class CatScriptParser {
             ifStmt.setExpression(parseExpression());
             require(RIGHT_PAREN, ifStmt);
 
-            LinkedList<Statement> truths = new LinkedList<>();
+            List<Statement> truths = new ArrayList<>();
 
             require(LEFT_BRACE, ifStmt);
 
@@ -157,7 +234,7 @@ public class CatScriptParser {
 
             if (tokens.matchAndConsume(ELSE)) {
                 if (tokens.matchAndConsume(LEFT_BRACE)) {
-                    LinkedList<Statement> elses = new LinkedList<>();
+                    List<Statement> elses = new ArrayList<>();
                     do {
                         if (!tokens.hasMoreTokens()) {
                             ifStmt.addError(ErrorType.UNTERMINATED_ARG_LIST);
@@ -257,7 +334,7 @@ public class CatScriptParser {
             }
             functionDefinitionStatement.setType(functionType);
             require(LEFT_BRACE, functionDefinitionStatement);
-            LinkedList<Statement> body = new LinkedList<>();
+            List<Statement> body = new ArrayList<>();
             while (!tokens.match(RIGHT_BRACE)) {
                 body.add(parseStatement());
             }
@@ -1,9 +1,9 @@
 package edu.montana.csci.csci468.parser;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class CatscriptType {
 
@@ -33,18 +33,20 @@ public class CatscriptType {
         return false;
     }
 
-    private static Map<CatscriptType, CatscriptType> MEMOIZATION_CACHE = new HashMap<>();
+    // list types are interned so types can be compared by identity.  Lookups
+    // are plain reads of the concurrent map; a miss races to publish one
+    // instance with putIfAbsent and every thread uses whichever one won.
+    // Nested types intern their component first, so list<list<int>> is
+    // keyed by the one list<int> instance
+    private static final ConcurrentMap<CatscriptType, ListType> LIST_TYPES = new ConcurrentHashMap<>();
     public static CatscriptType getListType(CatscriptType type) {
-
-        CatscriptType existingType = MEMOIZATION_CACHE.get(type);
-        if(existingType != null) {
+        ListType existingType = LIST_TYPES.get(type);
+        if (existingType != null) {
             return existingType;
-        } else {
-            ListType listType = new ListType(type);
-            MEMOIZATION_CACHE.put(type, listType);
-            return listType;
         }
-
+        ListType listType = new ListType(type);
+        existingType = LIST_TYPES.putIfAbsent(type, listType);
+        return existingType != null ? existingType : listType;
     }
 
     @Override
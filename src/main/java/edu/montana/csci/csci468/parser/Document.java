@@ -0,0 +1,238 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.Segments.Segment;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.Statement;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.IdentifierPool;
+import edu.montana.csci.csci468.tokenizer.Rope;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+import edu.montana.csci.csci468.tokenizer.TokenOrigin;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One version of a source being edited, parsed incrementally.  Every top
+// level statement keeps the origin its tokens are relative to.  An edit
+// re-tokenizes and re-parses from the statement before the edited range
+// until a statement boundary lines up with an old statement after the
+// range again, and the statements from there on are moved into the new
+// version as they are.  The source is kept in a Rope and the statements in
+// Segments, which store how far each one starts from the one before, so
+// moving them is free and the rest of an edit takes time logarithmic in the
+// size of the source.
+//
+// Versions are used in sequence: an edit takes over the program and
+// statements of the version it was made to, so from then on that version
+// throws an IllegalStateException when it is used.  An edit that fails takes
+// over nothing and leaves its version usable.  Programs are parse trees and
+// are not verified.
+public class Document {
+
+    // the latest version of the versions made from one another by edits
+    private static final class Versions {
+        int latest;
+    }
+
+    private final Versions versions;
+    private final int version;
+    private final Rope text;
+    private final IdentifierPool identifiers;
+    // every statement's origin is made from the root, which holds the
+    // tokenizer of the current version
+    private final TokenOrigin root;
+    private final Segments segments;
+    private final CatScriptProgram program;
+    private final int reusedStatements;
+
+    private Document(Versions versions, Rope text, IdentifierPool identifiers, TokenOrigin root, Segments segments,
+                     CatScriptProgram program, int reusedStatements) {
+        this.versions = versions;
+        this.version = versions.latest;
+        this.text = text;
+        this.identifiers = identifiers;
+        this.root = root;
+        this.segments = segments;
+        this.program = program;
+        this.reusedStatements = reusedStatements;
+    }
+
+    public static Document parse(String source) {
+        Versions versions = new Versions();
+        versions.latest = -1;
+        Document empty = new Document(versions, Rope.of(""), new IdentifierPool(), new TokenOrigin(null),
+                new Segments(), null, 0);
+        return empty.edit(0, 0, source);
+    }
+
+    // 0 for the parsed source, one more with every edit
+    public int getVersion() {
+        return version;
+    }
+
+    // the whole source as a String, which takes time in its length
+    public String getSource() {
+        checkLatest();
+        return text.toString();
+    }
+
+    public CatScriptProgram getProgram() {
+        checkLatest();
+        return program;
+    }
+
+    // the number of top level statements taken over from the previous version
+    public int getReusedStatements() {
+        checkLatest();
+        return reusedStatements;
+    }
+
+    // replaces source[start, end) with the replacement
+    public Document edit(int start, int end, String replacement) {
+        checkLatest();
+        Rope newText = text.replace(start, end, replacement);
+
+        // a program that is a single expression is parsed as a whole, the
+        // attempt fails within a few tokens for statement programs
+        CatScriptTokenizer expressionTokenizer = CatScriptTokenizer.streamingFrom(newText, 0, 1, 0, identifiers);
+        CatScriptProgram expressionProgram = new CatScriptParser().parseExpressionProgram(expressionTokenizer);
+        if (expressionProgram != null) {
+            versions.latest++;
+            return new Document(versions, newText, identifiers, new TokenOrigin(null), new Segments(),
+                    expressionProgram, 0);
+        }
+
+        // statements end with a lookahead at the next statement's first token,
+        // so the statement before the edit is parsed again too.  Scanning has
+        // to resume where a token begins
+        int first = Math.max(0, segments.indexBefore(start) - 1);
+        while (first > 0 && !startsAtToken(segments.get(first).firstType)) {
+            first--;
+        }
+
+        int resumeOffset = 0, resumeLine = 1;
+        if (first < segments.size()) {
+            resumeOffset = segments.get(first).getOffset();
+            resumeLine = segments.get(first).getLine();
+        }
+        CatScriptTokenizer tokenizer = CatScriptTokenizer.streamingFrom(newText, resumeOffset, resumeLine,
+                columnOf(newText, resumeOffset), identifiers);
+
+        // tokens of the statements parsed below read their values through the
+        // root, the previous version gets its tokenizer back if parsing fails
+        CatScriptTokenizer previousTokenizer = root.getTokenizer();
+        root.setTokenizer(tokenizer);
+        try {
+            return reparse(first, start, end, replacement, newText, tokenizer);
+        } catch (RuntimeException e) {
+            root.setTokenizer(previousTokenizer);
+            throw e;
+        }
+    }
+
+    // parses from segment first until the statements line up again
+    private Document reparse(int first, int start, int end, String replacement, Rope newText,
+                             CatScriptTokenizer tokenizer) {
+        TokenList tokens = tokenizer.getTokens();
+        int delta = replacement.length() - (end - start);
+        CatScriptParser parser = new CatScriptParser();
+        List<Segment> parsed = new ArrayList<>();
+        Token firstToken = first == 0 ? null : program.getStart();
+        int next = first;
+        int lineDelta = 0;
+        int reused = 0;
+        Token eof;
+        while (true) {
+            Token current = tokens.getCurrentToken();
+            if (current.getType() == TokenType.EOF) {
+                eof = new Token(current.getStart(), current.getEnd(), current.getLine(), current.getLineOffset(),
+                        "<EOF>", TokenType.EOF, tokenizer);
+                next = segments.size();
+                break;
+            }
+            boolean atStart = first == 0 && parsed.isEmpty();
+            int position = atStart ? 0 : current.getStart();
+            while (next < segments.size() && segments.get(next).getOffset() + delta < position) {
+                next++;
+            }
+            if (!atStart && next < segments.size() && startsAtToken(current.getType())) {
+                Segment candidate = segments.get(next);
+                int candidateOffset = candidate.getOffset();
+                if (candidateOffset >= end && candidateOffset + delta == position &&
+                        startsAtToken(candidate.firstType)) {
+                    lineDelta = current.getLine() - candidate.getLine();
+                    eof = movedEof(end, delta, lineDelta, newText, tokenizer);
+                    reused = reuse(next, end, delta, newText);
+                    break;
+                }
+            }
+            // a new segment is only put among the others once the parse went
+            // through, until then it is where it was made
+            Segment segment = new Segment(root, position, atStart ? 1 : current.getLine(), current.getType());
+            tokens.setOrigin(segment);
+            if (firstToken == null) {
+                firstToken = tokens.getCurrentToken();
+            }
+            segment.statement = parser.parseProgramStatement(tokens);
+            parsed.add(segment);
+        }
+
+        // nothing else is changed until the parse went through, so a version
+        // stays usable if an edit to it fails
+        List<Statement> statements = new ArrayList<>(parsed.size());
+        for (Segment segment : parsed) {
+            statements.add(segment.statement);
+        }
+        CatScriptProgram newProgram = program == null || program.isExpression() ? new CatScriptProgram() : program;
+        newProgram.replaceStatements(first, next, statements);
+        newProgram.setStart(firstToken == null ? eof : firstToken);
+        newProgram.setEnd(eof);
+        segments.replace(first, next, parsed, delta, lineDelta);
+        versions.latest++;
+        return new Document(versions, newText, identifiers, root, segments, newProgram, reused);
+    }
+
+    private void checkLatest() {
+        if (version != versions.latest) {
+            throw new IllegalStateException("version " + version + " of the document was edited, " +
+                    "version " + versions.latest + " is the latest");
+        }
+    }
+
+    // the old statements from index on are taken into the new version, which
+    // moves them as their distances are kept.  Only text on the line the edit
+    // ended on moves sideways
+    private int reuse(int index, int end, int delta, Rope newText) {
+        // the first reused statement starts at a token, so its line tells
+        // which line the edit ended on
+        Segment first = segments.get(index);
+        int endOfEditLine = text.indexOf('\n', end);
+        if (endOfEditLine < 0 || first.getOffset() <= endOfEditLine) {
+            int editLine = first.getLine();
+            int columnShift = columnOf(newText, end + delta) - columnOf(text, end);
+            for (int i = index; i < segments.size() && segments.get(i).getLine() == editLine; i++) {
+                segments.get(i).move(0, 0, columnShift);
+            }
+        }
+        return segments.size() - index;
+    }
+
+    private Token movedEof(int end, int delta, int lineDelta, Rope newText, CatScriptTokenizer tokenizer) {
+        Token eof = program.getEnd();
+        boolean onEditLine = text.indexOf('\n', end) < 0;
+        int column = eof.getLineOffset() + (onEditLine ? columnOf(newText, end + delta) - columnOf(text, end) : 0);
+        return new Token(eof.getStart() + delta, eof.getEnd() + delta, eof.getLine() + lineDelta, column,
+                "<EOF>", TokenType.EOF, tokenizer);
+    }
+
+    // string tokens (and errors in unterminated strings) start after the quote
+    private static boolean startsAtToken(TokenType type) {
+        return type != TokenType.STRING && type != TokenType.ERROR;
+    }
+
+    private static int columnOf(Rope text, int offset) {
+        return offset - (text.lastIndexOf('\n', offset - 1) + 1);
+    }
+}
@@ -8,9 +8,13 @@ import edu.montana.csci.csci468.tokenizer.Token;
 import org.objectweb.asm.Opcodes;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
 
@@ -19,13 +23,13 @@ public abstract class ParseElement {
     protected ParseElement parent;
     private Token start;
     private Token end;
-    private List<ParseElement> children;
-    private List<ParseError> errors;
+    private static final ParseElement[] NO_CHILDREN = new ParseElement[0];
 
-    public ParseElement() {
-        this.errors = new LinkedList<>();
-        this.children = new LinkedList<>();
-    }
+    // children are kept in a bare array that compact() trims to size, and
+    // since most nodes never get an error that list is made for the first
+    private ParseElement[] children = NO_CHILDREN;
+    private int childCount;
+    private ArrayList<ParseError> errors;
 
     public CatScriptProgram getProgram() {
         if (this.getParent() instanceof CatScriptProgram) {
@@ -61,11 +65,11 @@ public abstract class ParseElement {
     }
 
     public List<ParseError> getErrors() {
-        return errors;
+        return errors == null ? Collections.emptyList() : errors;
     }
 
     public boolean hasErrors() {
-        return !errors.isEmpty();
+        return errors != null && !errors.isEmpty();
     }
 
     public void addError(ErrorType errorType, Object... args) {
@@ -73,17 +77,53 @@ public abstract class ParseElement {
     }
 
     public void addError(ErrorType errorMessage, Token token, Object... args) {
+        if (errors == null) {
+            errors = new ArrayList<>(1);
+        }
         errors.add(new ParseError(token, errorMessage, args));
     }
 
     protected <T extends ParseElement> T addChild(T element) {
         element.parent = this;
-        children.add(element);
+        ensureChildCapacity(childCount + 1);
+        children[childCount++] = element;
         return element;
     }
 
+    protected void replaceChildren(int from, int to, List<? extends ParseElement> elements) {
+        Objects.checkFromToIndex(from, to, childCount);
+        int newCount = childCount - (to - from) + elements.size();
+        ensureChildCapacity(newCount);
+        System.arraycopy(children, to, children, from + elements.size(), childCount - to);
+        for (int i = newCount; i < childCount; i++) {
+            children[i] = null;
+        }
+        for (ParseElement element : elements) {
+            element.parent = this;
+            children[from++] = element;
+        }
+        childCount = newCount;
+    }
+
+    private void ensureChildCapacity(int needed) {
+        if (needed > children.length) {
+            children = Arrays.copyOf(children, Math.max(needed, children.length * 2));
+        }
+    }
+
     public List<ParseElement> getChildren() {
-        return children;
+        List<ParseElement> list = Arrays.asList(children);
+        return childCount == children.length ? list : list.subList(0, childCount);
+    }
+
+    // drops the spare capacity of the child arrays once a subtree is parsed
+    public void compact() {
+        if (childCount < children.length) {
+            children = childCount == 0 ? NO_CHILDREN : Arrays.copyOf(children, childCount);
+        }
+        for (int i = 0; i < childCount; i++) {
+            children[i].compact();
+        }
     }
 
     @Override
@@ -92,11 +132,11 @@ public abstract class ParseElement {
     }
 
     public boolean hasError(ErrorType errorMessage) {
-        return errors.stream().anyMatch(parseError -> Objects.equals(parseError.getErrorType(), errorMessage));
+        return getErrors().stream().anyMatch(parseError -> Objects.equals(parseError.getErrorType(), errorMessage));
     }
 
     private void registerFunctions(SymbolTable symbolTable) {
-        for (ParseElement child : children) {
+        for (ParseElement child : getChildren()) {
             if (child instanceof FunctionDefinitionStatement) {
                 FunctionDefinitionStatement func = (FunctionDefinitionStatement) child;
                 if (symbolTable.hasSymbol(func.getName())) {
@@ -113,14 +153,37 @@ public abstract class ParseElement {
         SymbolTable symbolTable = new SymbolTable();
         registerFunctions(symbolTable);
         validate(symbolTable);
+        throwErrors();
+    }
 
-        final LinkedList<ParseError> collector = new LinkedList<>();
-        collectErrors(collector, this);
+    // like verify(), but elements that can check parts of themselves
+    // independently do so on the given pool.  Errors are collected from the
+    // tree either way, so they come out in the same order
+    public final void verify(ForkJoinPool pool) {
+        SymbolTable symbolTable = new SymbolTable();
+        registerFunctions(symbolTable);
+        validate(symbolTable, pool);
+        throwErrors();
+    }
+
+    protected void validate(SymbolTable symbolTable, ForkJoinPool pool) {
+        validate(symbolTable);
+    }
+
+    private void throwErrors() {
+        List<ParseError> collector = collectErrors();
         if (collector.size() > 0) {
             throw new ParseErrorException(collector);
         }
     }
 
+    // the errors of this element and everything under it, in tree order
+    public List<ParseError> collectErrors() {
+        LinkedList<ParseError> collector = new LinkedList<>();
+        collectErrors(collector, this);
+        return collector;
+    }
+
     public abstract void validate(SymbolTable symbolTable);
 
     private void collectErrors(LinkedList<ParseError> collector, ParseElement parseElement){
@@ -138,6 +201,12 @@ public abstract class ParseElement {
         throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
     }
 
+    // writes the node's fields, children and resolved types for the AST
+    // cache, each node type reads them back in a static read(AstReader)
+    public void write(AstWriter out) {
+        throw new UnsupportedOperationException("write needs to be implemented for " + this.getClass().getName());
+    }
+
 
     protected void box(ByteCodeGenerator code, CatscriptType type) {
         if (type.equals(CatscriptType.INT)) {
@@ -24,7 +24,10 @@ public class ParseError {
 
     public String getFullMessage() {
         StringBuilder sb = new StringBuilder();
-        if (location != null) {
+        // a streaming parse may have let go of the line, see Token.getLineContent
+        if (location != null && location.getLineContent() == null) {
+            sb.append("Line ").append(location.getLine()).append("\n\n");
+        } else if (location != null) {
             String lineStart = "Line " + location.getLine() + ": ";
             sb.append(lineStart);
             sb.append(location.getLineContent());
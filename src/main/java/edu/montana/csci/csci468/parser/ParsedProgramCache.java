@@ -0,0 +1,155 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Disk cache of verified programs in the binary AST format, so scripts seen
+// before are rebuilt from a mapped file instead of being tokenized, parsed
+// and verified again.  Entries are named by the hash of the source and the
+// format version, and the header of an entry repeats both, so an entry
+// from another version or a damaged one is rebuilt and replaced.  Writing
+// an entry is best effort: a directory that cannot be written only costs
+// the next run a parse.
+public class ParsedProgramCache {
+
+    private final Path directory;
+    private final Map<String, CatScriptProgram> shared;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong sharedHits = new AtomicLong();
+    private final AtomicLong storeFailures = new AtomicLong();
+
+    public ParsedProgramCache(Path directory) {
+        this(directory, 0);
+    }
+
+    // the most recently used sharedEntries programs are also kept in memory
+    // for getSharedProgram()
+    public ParsedProgramCache(Path directory, int sharedEntries) {
+        this.directory = directory;
+        this.shared = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CatScriptProgram> eldest) {
+                return size() > sharedEntries;
+            }
+        };
+    }
+
+    // throws a ParseErrorException if the source does not verify, in which
+    // case nothing is cached.  Programs are fresh trees, one per call
+    public CatScriptProgram getProgram(String source) {
+        byte[] hash = hash(source);
+        Path entry = directory.resolve(HexFormat.of().formatHex(hash) + ".v" + AstWriter.VERSION + ".ast");
+        if (Files.exists(entry)) {
+            CatScriptProgram program = load(entry, source, hash);
+            if (program != null) {
+                hits.incrementAndGet();
+                return program;
+            }
+            rebuilds.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        store(entry, AstWriter.write(program, hash));
+        return program;
+    }
+
+    // like getProgram(), but the same tree may be handed to every caller and
+    // to several threads at once.  It must only be run on a runtime of the
+    // caller's own, with execute(CatscriptRuntime), so nothing is written to it
+    public CatScriptProgram getSharedProgram(String source) {
+        CatScriptProgram program;
+        synchronized (shared) {
+            program = shared.get(source);
+        }
+        if (program != null) {
+            sharedHits.incrementAndGet();
+            return program;
+        }
+        program = getProgram(source);
+        synchronized (shared) {
+            shared.put(source, program);
+        }
+        return program;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    // getSharedProgram() calls answered from memory
+    public long getSharedHits() {
+        return sharedHits.get();
+    }
+
+    // entries that were there but stale or unreadable
+    public long getRebuilds() {
+        return rebuilds.get();
+    }
+
+    // entries that could not be written
+    public long getStoreFailures() {
+        return storeFailures.get();
+    }
+
+    private static CatScriptProgram load(Path entry, String source, byte[] hash) {
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return AstReader.read(buffer, source, hash);
+        } catch (IOException | RuntimeException e) {
+            // a truncated or otherwise damaged entry fails somewhere in the
+            // reader, it is treated like a stale one
+            return null;
+        }
+    }
+
+    // entries are written to a temporary file and moved into place, so
+    // concurrent readers never see half an entry.  A failed write leaves no
+    // entry behind, the program is simply parsed again next time
+    private void store(Path entry, byte[] bytes) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            storeFailures.incrementAndGet();
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    static byte[] hash(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.Statement;
+import edu.montana.csci.csci468.tokenizer.TokenOrigin;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The top level statements of a Document in source order, each with the
+// origin its tokens are relative to.  A segment only stores how far it
+// starts from the one before it, in a treap that sums those distances, so
+// its offset and line are worked out when a token asks for them, in time
+// logarithmic in the number of statements.  Text inserted or removed
+// before a segment changes only the distance of the first segment after
+// it, the rest keep theirs.
+final class Segments {
+
+    static final class Segment extends TokenOrigin {
+        final TokenType firstType;
+        // set once it is parsed, tokens are made relative to the segment
+        // while they are parsed
+        Statement statement;
+
+        private Segment left;
+        private Segment right;
+        private Segment parent;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        // until it is in the tree the position given on creation is used
+        private boolean attached;
+        private int offsetGap;
+        private int lineGap;
+        private int size;
+        private int offsetSum;
+        private int lineSum;
+
+        Segment(TokenOrigin root, int offset, int line, TokenType firstType) {
+            super(root, offset, line);
+            this.firstType = firstType;
+        }
+
+        @Override
+        public int getOffset() {
+            if (!attached) {
+                return super.getOffset();
+            }
+            int offset = offsetGap + offsetSum(left);
+            for (Segment node = this; node.parent != null; node = node.parent) {
+                if (node.parent.right == node) {
+                    offset += node.parent.offsetGap + offsetSum(node.parent.left);
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        public int getLine() {
+            if (!attached) {
+                return super.getLine();
+            }
+            int line = 1 + lineGap + lineSum(left);
+            for (Segment node = this; node.parent != null; node = node.parent) {
+                if (node.parent.right == node) {
+                    line += node.parent.lineGap + lineSum(node.parent.left);
+                }
+            }
+            return line;
+        }
+    }
+
+    private Segment root;
+
+    int size() {
+        return size(root);
+    }
+
+    Segment get(int index) {
+        Segment node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    // the index of the last segment starting before offset, or 0
+    int indexBefore(int offset) {
+        int found = 0;
+        int index = 0;
+        int before = 0;
+        Segment node = root;
+        while (node != null) {
+            int start = before + offsetSum(node.left) + node.offsetGap;
+            if (start < offset) {
+                found = index + size(node.left);
+                index = found + 1;
+                before = start;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return found;
+    }
+
+    // replaces segments [from, to) with ones parsed from the new version of
+    // the source, which start where they were created.  The segments from
+    // to on start offsetDelta chars and lineDelta lines further on than
+    // they did
+    void replace(int from, int to, List<Segment> replacements, int offsetDelta, int lineDelta) {
+        int nextOffset = 0, nextLine = 0;
+        if (to < size()) {
+            Segment next = get(to);
+            nextOffset = next.getOffset() + offsetDelta;
+            nextLine = next.getLine() + lineDelta;
+        }
+        int previousOffset = 0, previousLine = 1;
+        if (from > 0) {
+            Segment previous = get(from - 1);
+            previousOffset = previous.getOffset();
+            previousLine = previous.getLine();
+        }
+
+        Segment[] parts = new Segment[2];
+        split(root, to, parts);
+        Segment after = parts[1];
+        split(parts[0], from, parts);
+        Segment before = parts[0];
+        Segment middle = null;
+        for (Segment segment : replacements) {
+            int offset = segment.getOffset(), line = segment.getLine();
+            segment.offsetGap = offset - previousOffset;
+            segment.lineGap = line - previousLine;
+            segment.attached = true;
+            previousOffset = offset;
+            previousLine = line;
+            middle = merge(middle, update(segment));
+        }
+        if (after != null) {
+            Segment first = after;
+            while (first.left != null) {
+                first = first.left;
+            }
+            first.offsetGap = nextOffset - previousOffset;
+            first.lineGap = nextLine - previousLine;
+            for (Segment node = first; node != null; node = node.parent) {
+                update(node);
+            }
+        }
+        root = merge(merge(before, middle), after);
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    // splits the tree into its first count segments and the rest, whose
+    // roots have no parent
+    private static void split(Segment node, int count, Segment[] parts) {
+        if (node == null) {
+            parts[0] = parts[1] = null;
+            return;
+        }
+        if (size(node.left) < count) {
+            split(node.right, count - size(node.left) - 1, parts);
+            node.right = parts[0];
+            parts[0] = update(node);
+        } else {
+            split(node.left, count, parts);
+            node.left = parts[1];
+            parts[1] = update(node);
+        }
+        node.parent = null;
+    }
+
+    private static Segment merge(Segment first, Segment second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return update(first);
+        }
+        second.left = merge(first, second.left);
+        return update(second);
+    }
+
+    private static Segment update(Segment node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.offsetSum = node.offsetGap + offsetSum(node.left) + offsetSum(node.right);
+        node.lineSum = node.lineGap + lineSum(node.left) + lineSum(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+        return node;
+    }
+
+    private static int size(Segment node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int offsetSum(Segment node) {
+        return node == null ? 0 : node.offsetSum;
+    }
+
+    private static int lineSum(Segment node) {
+        return node == null ? 0 : node.lineSum;
+    }
+}
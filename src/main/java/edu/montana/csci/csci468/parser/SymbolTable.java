@@ -2,18 +2,52 @@ package edu.montana.csci.csci468.parser;
 
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 
+import java.util.AbstractMap;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public class SymbolTable {
 
     LinkedList<Map<String, Object>> symbolStack = new LinkedList<>();
 
+    // slot resolution: every scope belongs to a frame, and every variable
+    // registered in a scope is given the next free slot of that frame
+    LinkedList<Map<String, Integer>> slotStack = new LinkedList<>();
+    LinkedList<Integer> scopeFrames = new LinkedList<>();
+    LinkedList<AtomicInteger> frameSlots = new LinkedList<>();
+
+    // the order global names were registered in, so a snapshot can leave
+    // out the globals registered after it was taken
+    private final Map<String, Integer> globalOrder = new HashMap<>();
+
     public SymbolTable(){
         HashMap<String, Object> globalScope = new HashMap<>();
         symbolStack.push(globalScope);
+        slotStack.push(new HashMap<>());
+        scopeFrames.push(0);
+        frameSlots.push(new AtomicInteger());
+    }
+
+    private SymbolTable(SymbolTable table, int visibleGlobals) {
+        symbolStack.push(new VisibleGlobals<>(table.symbolStack.getLast(), table.globalOrder, visibleGlobals));
+        slotStack.push(new VisibleGlobals<>(table.slotStack.getLast(), table.globalOrder, visibleGlobals));
+        scopeFrames.push(0);
+        frameSlots.push(new AtomicInteger(table.frameSlots.getLast().get()));
+    }
+
+    /**
+     * Returns a table that sees the globals registered so far and none of
+     * the ones registered after this call, for checking a function body on
+     * another thread.  It reads this table's global scope, which must not
+     * change any more once the snapshot is used, and nothing may be
+     * registered in the snapshot's own global scope.
+     */
+    public SymbolTable snapshot() {
+        return new SymbolTable(this, globalOrder.size());
     }
 
     public boolean hasSymbol(String name) {
@@ -32,10 +66,21 @@ public class SymbolTable {
 
     public void registerFunction(String name, FunctionDefinitionStatement func) {
         symbolStack.peek().put(name, func);
+        recordGlobal(name);
     }
 
-    public void registerSymbol(String name, CatscriptType type) {
+    public int registerSymbol(String name, CatscriptType type) {
         symbolStack.peek().put(name, type);
+        recordGlobal(name);
+        int slot = frameSlots.peek().getAndIncrement();
+        slotStack.peek().put(name, slot);
+        return slot;
+    }
+
+    private void recordGlobal(String name) {
+        if (symbolStack.size() == 1) {
+            globalOrder.putIfAbsent(name, globalOrder.size());
+        }
     }
 
     public boolean isSymbolGlobal(String name) {
@@ -64,11 +109,100 @@ public class SymbolTable {
         }
     }
 
+    /**
+     * Returns the number of frames between the current frame and the frame
+     * that holds the given variable (0 is the current frame), or -1 if the
+     * variable is not defined.
+     */
+    public int getSymbolDepth(String name) {
+        for (int i = 0; i < slotStack.size(); i++) {
+            if (slotStack.get(i).containsKey(name)) {
+                return scopeFrames.peek() - scopeFrames.get(i);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the given variable within its frame, or -1 if the
+     * variable is not defined.
+     */
+    public int getSymbolSlot(String name) {
+        for (Map<String, Integer> slots : slotStack) {
+            Integer slot = slots.get(name);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of slots the current frame needs at runtime
+     */
+    public int getFrameSize() {
+        return frameSlots.peek().get();
+    }
+
     public void pushScope() {
         symbolStack.push(new HashMap<>());
+        slotStack.push(new HashMap<>());
+        scopeFrames.push(scopeFrames.peek());
     }
 
     public void popScope() {
         symbolStack.pop();
+        slotStack.pop();
+        scopeFrames.pop();
+    }
+
+    public void pushFrame() {
+        frameSlots.push(new AtomicInteger());
+        symbolStack.push(new HashMap<>());
+        slotStack.push(new HashMap<>());
+        scopeFrames.push(scopeFrames.peek() + 1);
+    }
+
+    public int popFrame() {
+        int frameSize = getFrameSize();
+        popScope();
+        frameSlots.pop();
+        return frameSize;
+    }
+
+    // a read-only view of a global scope that only has the first visible
+    // names registered in it
+    private static class VisibleGlobals<V> extends AbstractMap<String, V> {
+        private final Map<String, V> scope;
+        private final Map<String, Integer> order;
+        private final int visible;
+
+        VisibleGlobals(Map<String, V> scope, Map<String, Integer> order, int visible) {
+            this.scope = scope;
+            this.order = order;
+            this.visible = visible;
+        }
+
+        private boolean isVisible(Object name) {
+            Integer index = order.get(name);
+            return index != null && index < visible;
+        }
+
+        @Override
+        public V get(Object name) {
+            return isVisible(name) ? scope.get(name) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return isVisible(name) && scope.containsKey(name);
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return scope.entrySet().stream()
+                    .filter(entry -> isVisible(entry.getKey()))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
     }
 }
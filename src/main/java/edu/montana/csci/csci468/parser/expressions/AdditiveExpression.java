@@ -1,17 +1,27 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.*;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class AdditiveExpression extends Expression {
 
+    // the most argument slots StringConcatFactory accepts in one call
+    private static final int MAX_CONCAT_SLOTS = 200;
+
     private final Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
+    private boolean integerMath;
 
     public AdditiveExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -33,7 +43,8 @@ public class AdditiveExpression extends Expression {
     public void validate(SymbolTable symbolTable) {
         leftHandSide.validate(symbolTable);
         rightHandSide.validate(symbolTable);
-        if (getType().equals(CatscriptType.INT)) {
+        integerMath = getType().equals(CatscriptType.INT);
+        if (integerMath) {
             if (!leftHandSide.getType().equals(CatscriptType.INT)) {
                 leftHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
             }
@@ -64,15 +75,8 @@ public class AdditiveExpression extends Expression {
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
 
-        if (getType().equals(CatscriptType.INT)) {
-            Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
-            Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
-
-            if (isAdd()) {
-                return lhsValue + rhsValue;
-            } else {
-                return lhsValue - rhsValue;
-            }
+        if (integerMath) {
+            return evaluateInt(runtime);
         } else {
             if (!leftHandSide.getType().equals(CatscriptType.STRING)) {
                 Object lhsValue = leftHandSide.evaluate(runtime);
@@ -90,6 +94,39 @@ public class AdditiveExpression extends Expression {
         }
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
+        if (isAdd()) {
+            return lhsValue + rhsValue;
+        } else {
+            return lhsValue - rhsValue;
+        }
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        if (integerMath) {
+            IntClosure closure = compileIntClosure(compiler);
+            return (runtime, frame) -> closure.evaluate(runtime, frame);
+        }
+        ObjectClosure lhs = leftHandSide.compileClosure(compiler);
+        ObjectClosure rhs = rightHandSide.compileClosure(compiler);
+        return (runtime, frame) -> String.valueOf(lhs.evaluate(runtime, frame)) + rhs.evaluate(runtime, frame);
+    }
+
+    @Override
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        IntClosure lhs = leftHandSide.compileIntClosure(compiler);
+        IntClosure rhs = rightHandSide.compileIntClosure(compiler);
+        if (isAdd()) {
+            return (runtime, frame) -> lhs.evaluate(runtime, frame) + rhs.evaluate(runtime, frame);
+        } else {
+            return (runtime, frame) -> lhs.evaluate(runtime, frame) - rhs.evaluate(runtime, frame);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         getLeftHandSide().transpile(javascript);
@@ -99,7 +136,9 @@ public class AdditiveExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        if (getType().equals(CatscriptType.STRING)) {
+        if (getType().equals(CatscriptType.STRING) && code.getOptions().isIndyStringConcat()) {
+            compileStringConcat(code);
+        } else if (getType().equals(CatscriptType.STRING)) {
 
             getLeftHandSide().compile(code);
             box(code, getLeftHandSide().getType());
@@ -124,4 +163,85 @@ public class AdditiveExpression extends Expression {
         }
     }
 
+    // a chain like "a" + x + "b" + y compiles to a single invokedynamic, with
+    // the string literals folded into the recipe.  StringConcatFactory takes
+    // at most 200 argument slots, so longer chains are concatenated in
+    // groups, each one starting with the string the group before it made
+    private void compileStringConcat(ByteCodeGenerator code) {
+        List<Expression> operands = new ArrayList<>();
+        collectConcatOperands(operands);
+        StringBuilder recipe = new StringBuilder();
+        StringBuilder descriptor = new StringBuilder("(");
+        int slots = 0;
+        for (Expression operand : operands) {
+            if (operand instanceof StringLiteralExpression && isRecipeConstant(((StringLiteralExpression) operand).getValue())) {
+                recipe.append(((StringLiteralExpression) operand).getValue());
+            } else {
+                String operandDescriptor = concatDescriptorFor(operand.getType());
+                int operandSlots = slotsFor(operandDescriptor);
+                if (slots + operandSlots > MAX_CONCAT_SLOTS) {
+                    code.addStringConcatInstruction(recipe.toString(), descriptor.append(")Ljava/lang/String;").toString());
+                    recipe.setLength(0);
+                    recipe.append('\u0001');
+                    descriptor.setLength(0);
+                    descriptor.append("(Ljava/lang/String;");
+                    slots = 1;
+                }
+                operand.compile(code);
+                recipe.append('\u0001');
+                descriptor.append(operandDescriptor);
+                slots += operandSlots;
+            }
+        }
+        descriptor.append(")Ljava/lang/String;");
+        code.addStringConcatInstruction(recipe.toString(), descriptor.toString());
+    }
+
+    private void collectConcatOperands(List<Expression> operands) {
+        for (Expression side : List.of(leftHandSide, rightHandSide)) {
+            if (side instanceof AdditiveExpression && side.getType().equals(CatscriptType.STRING)) {
+                ((AdditiveExpression) side).collectConcatOperands(operands);
+            } else {
+                operands.add(side);
+            }
+        }
+    }
+
+    private static boolean isRecipeConstant(String value) {
+        return value.indexOf('\u0001') < 0 && value.indexOf('\u0002') < 0;
+    }
+
+    private static int slotsFor(String descriptor) {
+        return descriptor.equals("J") || descriptor.equals("D") ? 2 : 1;
+    }
+
+    private static String concatDescriptorFor(CatscriptType type) {
+        if (type.equals(CatscriptType.INT)) {
+            return "I";
+        } else if (type.equals(CatscriptType.BOOLEAN)) {
+            return "Z";
+        } else if (type.equals(CatscriptType.STRING)) {
+            return "Ljava/lang/String;";
+        } else {
+            return "Ljava/lang/Object;";
+        }
+    }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeToken(operator);
+        out.writeNode(leftHandSide);
+        out.writeNode(rightHandSide);
+        out.writeBoolean(integerMath);
+    }
+
+    public static AdditiveExpression read(AstReader in) {
+        AdditiveExpression expression = new AdditiveExpression(in.readToken(), in.readNode(), in.readNode());
+        expression.integerMath = in.readBoolean();
+        return expression;
+    }
 }
@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -35,6 +40,23 @@ public class BooleanLiteralExpression extends Expression {
         //return super.evaluate(runtime);
     }
 
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return booleanValue;
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        Boolean value = booleanValue;
+        return (runtime, frame) -> value;
+    }
+
+    @Override
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        boolean value = booleanValue;
+        return (runtime, frame) -> value;
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         javascript.append(booleanValue ? "true" : "false");
@@ -47,4 +69,16 @@ public class BooleanLiteralExpression extends Expression {
         //super.compile(code);
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeBoolean(booleanValue);
+    }
+
+    public static BooleanLiteralExpression read(AstReader in) {
+        return new BooleanLiteralExpression(in.readBoolean());
+    }
 }
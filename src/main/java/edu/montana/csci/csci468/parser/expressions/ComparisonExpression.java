@@ -1,7 +1,13 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -73,34 +79,50 @@ public class ComparisonExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
+        return evaluateBoolean(runtime);
+    }
 
-        Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
-        Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
-
-        if (isLessThanOrEqual()) {
-            if (lhsValue <= rhsValue) {
-                return true;
-            }
-            return false;
-        } else if (isGreaterThanOrEqual()) {
-            if (lhsValue >= rhsValue) {
-                return true;
-            }
-            return false;
-        } else if (isGreater()) {
-            if (lhsValue > rhsValue) {
-                return true;
-            }
-            return false;
-        } else {
-            if (lhsValue < rhsValue) {
-                return true;
-            }
-            return false;
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
+
+        switch (operator.getType()) {
+            case LESS_EQUAL:
+                return lhsValue <= rhsValue;
+            case GREATER_EQUAL:
+                return lhsValue >= rhsValue;
+            case GREATER:
+                return lhsValue > rhsValue;
+            default:
+                return lhsValue < rhsValue;
         }
 
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        BooleanClosure closure = compileBooleanClosure(compiler);
+        return (runtime, frame) -> closure.evaluate(runtime, frame);
+    }
+
+    @Override
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        IntClosure lhs = leftHandSide.compileIntClosure(compiler);
+        IntClosure rhs = rightHandSide.compileIntClosure(compiler);
+        switch (operator.getType()) {
+            case LESS_EQUAL:
+                return (runtime, frame) -> lhs.evaluate(runtime, frame) <= rhs.evaluate(runtime, frame);
+            case GREATER_EQUAL:
+                return (runtime, frame) -> lhs.evaluate(runtime, frame) >= rhs.evaluate(runtime, frame);
+            case GREATER:
+                return (runtime, frame) -> lhs.evaluate(runtime, frame) > rhs.evaluate(runtime, frame);
+            default:
+                return (runtime, frame) -> lhs.evaluate(runtime, frame) < rhs.evaluate(runtime, frame);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -132,4 +154,18 @@ public class ComparisonExpression extends Expression {
 
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeToken(operator);
+        out.writeNode(leftHandSide);
+        out.writeNode(rightHandSide);
+    }
+
+    public static ComparisonExpression read(AstReader in) {
+        return new ComparisonExpression(in.readToken(), in.readNode(), in.readNode());
+    }
 }
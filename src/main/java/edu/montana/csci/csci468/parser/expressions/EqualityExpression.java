@@ -1,7 +1,13 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -75,6 +81,31 @@ public class EqualityExpression extends Expression {
 
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        BooleanClosure closure = compileBooleanClosure(compiler);
+        return (runtime, frame) -> closure.evaluate(runtime, frame);
+    }
+
+    @Override
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        BooleanClosure equals;
+        if (leftHandSide.getType().equals(CatscriptType.INT) && rightHandSide.getType().equals(CatscriptType.INT)) {
+            IntClosure lhs = leftHandSide.compileIntClosure(compiler);
+            IntClosure rhs = rightHandSide.compileIntClosure(compiler);
+            equals = (runtime, frame) -> lhs.evaluate(runtime, frame) == rhs.evaluate(runtime, frame);
+        } else {
+            ObjectClosure lhs = leftHandSide.compileClosure(compiler);
+            ObjectClosure rhs = rightHandSide.compileClosure(compiler);
+            equals = (runtime, frame) -> Objects.equals(lhs.evaluate(runtime, frame), rhs.evaluate(runtime, frame));
+        }
+        if (isEqual()) {
+            return equals;
+        } else {
+            return (runtime, frame) -> !equals.evaluate(runtime, frame);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -109,5 +140,18 @@ public class EqualityExpression extends Expression {
         code.addLabel(end);
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeToken(operator);
+        out.writeNode(leftHandSide);
+        out.writeNode(rightHandSide);
+    }
 
+    public static EqualityExpression read(AstReader in) {
+        return new EqualityExpression(in.readToken(), in.readNode(), in.readNode());
+    }
 }
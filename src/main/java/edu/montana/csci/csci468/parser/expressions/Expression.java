@@ -1,6 +1,10 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseElement;
@@ -11,6 +15,17 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("evaluate needs to be implemented for " + this.getClass().getName());
     }
 
+    // primitive entry points for expressions verified as int or bool.  Nodes
+    // that produce ints or bools override these so that parents can evaluate
+    // arithmetic without boxing intermediate values
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return (Integer) evaluate(runtime);
+    }
+
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return Boolean.TRUE.equals(evaluate(runtime));
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         throw new UnsupportedOperationException("transpile needs to be implemented for " + this.getClass().getName());
@@ -21,5 +36,19 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
     }
 
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        throw new UnsupportedOperationException("compileClosure needs to be implemented for " + this.getClass().getName());
+    }
+
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        ObjectClosure closure = compileClosure(compiler);
+        return (runtime, frame) -> (Integer) closure.evaluate(runtime, frame);
+    }
+
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        ObjectClosure closure = compileClosure(compiler);
+        return (runtime, frame) -> Boolean.TRUE.equals(closure.evaluate(runtime, frame));
+    }
+
     public abstract CatscriptType getType();
 }
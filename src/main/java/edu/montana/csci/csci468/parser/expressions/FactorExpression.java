@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -62,15 +67,37 @@ public class FactorExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
-        Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
-        if (operator.getType() == TokenType.STAR) {
+        return evaluateInt(runtime);
+    }
+
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
+        if (isMultiply()) {
             return lhsValue * rhsValue;
         } else {
             return lhsValue / rhsValue;
         }
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        IntClosure closure = compileIntClosure(compiler);
+        return (runtime, frame) -> closure.evaluate(runtime, frame);
+    }
+
+    @Override
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        IntClosure lhs = leftHandSide.compileIntClosure(compiler);
+        IntClosure rhs = rightHandSide.compileIntClosure(compiler);
+        if (isMultiply()) {
+            return (runtime, frame) -> lhs.evaluate(runtime, frame) * rhs.evaluate(runtime, frame);
+        } else {
+            return (runtime, frame) -> lhs.evaluate(runtime, frame) / rhs.evaluate(runtime, frame);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -87,5 +114,18 @@ public class FactorExpression extends Expression {
         }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
 
+    @Override
+    public void write(AstWriter out) {
+        out.writeToken(operator);
+        out.writeNode(leftHandSide);
+        out.writeNode(rightHandSide);
+    }
+
+    public static FactorExpression read(AstReader in) {
+        return new FactorExpression(in.readToken(), in.readNode(), in.readNode());
+    }
 }
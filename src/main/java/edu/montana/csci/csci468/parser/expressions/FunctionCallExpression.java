@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.CompiledFunction;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -9,7 +14,7 @@ import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import org.objectweb.asm.Opcodes;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class FunctionCallExpression extends Expression {
@@ -18,7 +23,7 @@ public class FunctionCallExpression extends Expression {
     private CatscriptType type;
 
     public FunctionCallExpression(String functionName, List<Expression> arguments) {
-        this.arguments = new LinkedList<>();
+        this.arguments = new ArrayList<>(arguments.size());
         for (Expression value : arguments) {
             this.arguments.add(addChild(value));
         }
@@ -68,11 +73,29 @@ public class FunctionCallExpression extends Expression {
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
         FunctionDefinitionStatement function = getProgram().getFunction(getName());
-        List<Object> args = new LinkedList<>();
-        for (Expression argument : arguments) {
-            args.add(argument.evaluate(runtime));
+        Object[] frame = runtime.acquireFrame(function.getFrameSize());
+        try {
+            int i = 0;
+            for (Expression argument : arguments) {
+                frame[i++] = argument.evaluate(runtime);
+            }
+            return function.invoke(runtime, frame);
+        } finally {
+            runtime.releaseFrame(frame);
         }
-        return function.invoke(runtime, args);
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        CompiledFunction function = compiler.getFunction(getName());
+        ObjectClosure[] closures = compiler.compileAll(arguments);
+        return (runtime, frame) -> {
+            Object[] newFrame = new Object[function.getFrameSize()];
+            for (int i = 0; i < closures.length; i++) {
+                newFrame[i] = closures[i].evaluate(runtime, frame);
+            }
+            return function.invoke(runtime, newFrame);
+        };
     }
 
     @Override
@@ -84,6 +107,11 @@ public class FunctionCallExpression extends Expression {
     public void compile(ByteCodeGenerator code) {
         code.addVarInstruction(Opcodes.ALOAD, 0);
         FunctionDefinitionStatement function = getProgram().getFunction(getName());
+        if (code.getOptions().isMetered()) {
+            code.loadCallDepthForCall();
+        } else {
+            code.loadRuntime();
+        }
         for (int i = 0; i < arguments.size(); i++) {
             Expression argument = arguments.get(i);
             argument.compile(code);
@@ -91,8 +119,28 @@ public class FunctionCallExpression extends Expression {
                 box(code, argument.getType());
             }
         }
-        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, code.getProgramInternalName(), name, function.getDescriptor());
+        if (code.getOptions().isStaticFunctions()) {
+            code.addMethodInstruction(Opcodes.INVOKESTATIC, code.getProgramInternalName(), name,
+                    function.getStaticDescriptor(code.getProgramInternalName(), code.getOptions()));
+        } else {
+            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, code.getProgramInternalName(), name, function.getDescriptor(code.getOptions()));
+        }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
 
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(name);
+        out.writeNodes(arguments);
+        out.writeType(type);
+    }
+
+    public static FunctionCallExpression read(AstReader in) {
+        FunctionCallExpression expression = new FunctionCallExpression(in.readString(), in.readNodes());
+        expression.type = in.readType();
+        return expression;
+    }
 }
@@ -1,7 +1,11 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -11,6 +15,8 @@ import org.objectweb.asm.Opcodes;
 public class IdentifierExpression extends Expression {
     private final String name;
     private CatscriptType type;
+    private int depth;
+    private int slot;
 
     public IdentifierExpression(String value) {
         this.name = value;
@@ -20,6 +26,10 @@ public class IdentifierExpression extends Expression {
         return name;
     }
 
+    public int getDepth() {
+        return depth;
+    }
+
     @Override
     public CatscriptType getType() {
         return type;
@@ -32,6 +42,8 @@ public class IdentifierExpression extends Expression {
             addError(ErrorType.UNKNOWN_NAME);
         } else {
             this.type = type;
+            depth = symbolTable.getSymbolDepth(getName());
+            slot = symbolTable.getSymbolSlot(getName());
         }
     }
 
@@ -41,7 +53,17 @@ public class IdentifierExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        return runtime.getValue(name);
+        return runtime.getValue(depth, slot);
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        int slot = this.slot;
+        if (depth == 0) {
+            return (runtime, frame) -> frame[slot];
+        } else {
+            return (runtime, frame) -> runtime.getGlobals()[slot];
+        }
     }
 
     @Override
@@ -72,5 +94,23 @@ public class IdentifierExpression extends Expression {
         }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(name);
+        out.writeType(type);
+        out.writeInt(depth);
+        out.writeInt(slot);
+    }
 
+    public static IdentifierExpression read(AstReader in) {
+        IdentifierExpression expression = new IdentifierExpression(in.readString());
+        expression.type = in.readType();
+        expression.depth = in.readInt();
+        expression.slot = in.readInt();
+        return expression;
+    }
 }
@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -16,6 +21,11 @@ public class IntegerLiteralExpression extends Expression {
         return integerVal;
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return integerVal;
+    }
+
     @Override
     public String toString() {
         return integerVal + "";
@@ -38,6 +48,18 @@ public class IntegerLiteralExpression extends Expression {
         return integerVal;
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        Integer value = integerVal;
+        return (runtime, frame) -> value;
+    }
+
+    @Override
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        int value = integerVal;
+        return (runtime, frame) -> value;
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -47,4 +69,17 @@ public class IntegerLiteralExpression extends Expression {
     public void compile(ByteCodeGenerator code) {
         code.pushConstantOntoStack(integerVal);
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeInt(integerVal);
+    }
+
+    public static IntegerLiteralExpression read(AstReader in) {
+        return new IntegerLiteralExpression(Integer.toString(in.readInt()));
+    }
 }
@@ -1,14 +1,17 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
@@ -19,7 +22,7 @@ ListLiteralExpression extends Expression {
     private CatscriptType type;
 
     public ListLiteralExpression(List<Expression> values) {
-        this.values = new LinkedList<>();
+        this.values = new ArrayList<>(values.size());
         for (Expression value : values) {
             this.values.add(addChild(value));
         }
@@ -65,6 +68,18 @@ ListLiteralExpression extends Expression {
         return objects;
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure[] closures = compiler.compileAll(values);
+        return (runtime, frame) -> {
+            ArrayList<Object> objects = new ArrayList<>(closures.length);
+            for (ObjectClosure closure : closures) {
+                objects.add(closure.evaluate(runtime, frame));
+            }
+            return objects;
+        };
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -84,5 +99,19 @@ ListLiteralExpression extends Expression {
         }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNodes(values);
+        out.writeType(type);
+    }
 
+    public static ListLiteralExpression read(AstReader in) {
+        ListLiteralExpression expression = new ListLiteralExpression(in.readNodes());
+        expression.type = in.readType();
+        return expression;
+    }
 }
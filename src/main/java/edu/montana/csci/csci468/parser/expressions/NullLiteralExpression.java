@@ -1,7 +1,11 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -24,6 +28,11 @@ public class NullLiteralExpression extends Expression {
         return null;
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        return (runtime, frame) -> null;
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -34,5 +43,15 @@ public class NullLiteralExpression extends Expression {
         code.pushConstantOntoStack(null);
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
 
+    @Override
+    public void write(AstWriter out) {
+    }
+
+    public static NullLiteralExpression read(AstReader in) {
+        return new NullLiteralExpression();
+    }
 }
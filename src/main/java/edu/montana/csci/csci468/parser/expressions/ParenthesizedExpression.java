@@ -1,7 +1,13 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -38,6 +44,31 @@ public class ParenthesizedExpression extends Expression {
         return expression.evaluate(runtime);
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return expression.evaluateInt(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return expression.evaluateBoolean(runtime);
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        return expression.compileClosure(compiler);
+    }
+
+    @Override
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        return expression.compileIntClosure(compiler);
+    }
+
+    @Override
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        return expression.compileBooleanClosure(compiler);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         javascript.append("(");
@@ -50,4 +81,16 @@ public class ParenthesizedExpression extends Expression {
         expression.compile(code);
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
+    }
+
+    public static ParenthesizedExpression read(AstReader in) {
+        return new ParenthesizedExpression(in.readNode());
+    }
 }
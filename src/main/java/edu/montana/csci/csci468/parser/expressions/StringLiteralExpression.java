@@ -1,7 +1,11 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -33,6 +37,12 @@ public class StringLiteralExpression extends Expression {
         return stringValue;
     }
 
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        String value = stringValue;
+        return (runtime, frame) -> value;
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -44,5 +54,16 @@ public class StringLiteralExpression extends Expression {
         //super.compile(code);
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
 
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(stringValue);
+    }
+
+    public static StringLiteralExpression read(AstReader in) {
+        return new StringLiteralExpression(in.readString());
+    }
 }
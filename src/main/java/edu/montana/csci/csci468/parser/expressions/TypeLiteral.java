@@ -2,6 +2,8 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -40,4 +42,18 @@ public class TypeLiteral extends Expression {
         throw new IllegalStateException("Not Supported");
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeType(type);
+    }
+
+    public static TypeLiteral read(AstReader in) {
+        TypeLiteral typeLiteral = new TypeLiteral();
+        typeLiteral.setType(in.readType());
+        return typeLiteral;
+    }
 }
@@ -1,7 +1,13 @@
 package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.IntClosure;
+import edu.montana.csci.csci468.closure.ObjectClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -62,19 +68,46 @@ public class UnaryExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Object rhsValue = getRightHandSide().evaluate(runtime);
         if (this.isMinus()) {
-            return -1 * (Integer) rhsValue;
-        } else if (this.isNot()) {
-            if (rhsValue.toString().equals("true")) {
-                return false;
-            }
-            return true;
-        }else {
-            return null;
+            return evaluateInt(runtime);
+        } else {
+            return evaluateBoolean(runtime);
+        }
+    }
+
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return -rightHandSide.evaluateInt(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return !rightHandSide.evaluateBoolean(runtime);
+    }
+
+    @Override
+    public ObjectClosure compileClosure(ClosureCompiler compiler) {
+        if (isMinus()) {
+            IntClosure closure = compileIntClosure(compiler);
+            return (runtime, frame) -> closure.evaluate(runtime, frame);
+        } else {
+            BooleanClosure closure = compileBooleanClosure(compiler);
+            return (runtime, frame) -> closure.evaluate(runtime, frame);
         }
     }
 
+    @Override
+    public IntClosure compileIntClosure(ClosureCompiler compiler) {
+        IntClosure rhs = rightHandSide.compileIntClosure(compiler);
+        return (runtime, frame) -> -rhs.evaluate(runtime, frame);
+    }
+
+    @Override
+    public BooleanClosure compileBooleanClosure(ClosureCompiler compiler) {
+        BooleanClosure rhs = rightHandSide.compileBooleanClosure(compiler);
+        return (runtime, frame) -> !rhs.evaluate(runtime, frame);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -91,5 +124,17 @@ public class UnaryExpression extends Expression {
         }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeToken(operator);
+        out.writeNode(rightHandSide);
+    }
 
+    public static UnaryExpression read(AstReader in) {
+        return new UnaryExpression(in.readToken(), in.readNode());
+    }
 }
@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -14,6 +19,8 @@ public class AssignmentStatement extends Statement {
     private String variableName;
     private CatscriptType type;
     private boolean global;
+    private int depth;
+    private int slot;
 
     public Expression getExpression() {
         return expression;
@@ -31,11 +38,17 @@ public class AssignmentStatement extends Statement {
         this.variableName = variableName;
     }
 
+    public int getDepth() {
+        return depth;
+    }
+
     @Override
     public void validate(SymbolTable symbolTable) {
         expression.validate(symbolTable);
         type = symbolTable.getSymbolType(variableName);
         global = symbolTable.isSymbolGlobal(variableName);
+        depth = symbolTable.getSymbolDepth(variableName);
+        slot = symbolTable.getSymbolSlot(variableName);
 
         CatscriptType symbolType = symbolTable.getSymbolType(getVariableName());
         if (symbolType == null) {
@@ -52,7 +65,24 @@ public class AssignmentStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        expression.evaluate(runtime);
+        runtime.setValue(depth, slot, expression.evaluate(runtime));
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure value = expression.compileClosure(compiler);
+        int slot = this.slot;
+        if (depth == 0) {
+            return (runtime, frame) -> {
+                frame[slot] = value.evaluate(runtime, frame);
+                return false;
+            };
+        } else {
+            return (runtime, frame) -> {
+                runtime.getGlobals()[slot] = value.evaluate(runtime, frame);
+                return false;
+            };
+        }
     }
 
     @Override
@@ -88,4 +118,29 @@ public class AssignmentStatement extends Statement {
 
 
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(variableName);
+        out.writeNode(expression);
+        out.writeType(type);
+        out.writeBoolean(global);
+        out.writeInt(depth);
+        out.writeInt(slot);
+    }
+
+    public static AssignmentStatement read(AstReader in) {
+        AssignmentStatement statement = new AssignmentStatement();
+        statement.setVariableName(in.readString());
+        statement.setExpression(in.readNode());
+        statement.type = in.readType();
+        statement.global = in.readBoolean();
+        statement.depth = in.readInt();
+        statement.slot = in.readInt();
+        return statement;
+    }
 }
@@ -1,40 +1,95 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
 
 public class CatScriptProgram extends Statement {
 
-    private StringBuffer output = new StringBuffer();
-    private List<Statement> statements = new LinkedList<>();
-    private Map<String, FunctionDefinitionStatement> functions = new HashMap<>();
+    // a program holds no state of its runs: output, limits and variables
+    // belong to the CatscriptRuntime it is executed on, which compiled code
+    // is handed as well
+    private List<Statement> statements = new ArrayList<>();
+    // what execute() printed, see there
+    private final StringBuffer output = new StringBuffer();
+    // kept up to date as statements are added and replaced, never built on
+    // first use: verifier tasks and concurrent runs of a shared program read
+    // it without locking
+    private final Map<String, FunctionDefinitionStatement> functions = new HashMap<>();
+    // how many statements define each name, which is one unless the program
+    // has duplicates and won't verify
+    private final Map<String, Integer> definitions = new HashMap<>();
+    // functions ever added, each gets the next index.  Replaced functions
+    // keep theirs, so an index is never handed out twice
+    private int functionCount;
     private Expression expression;
-
-    public void print(Object v) {
-        output.append(v).append("\n");
-    }
-
-    public String getOutput(){
-        return output.toString();
-    }
+    private int globalSlots;
 
     public void addStatement(Statement child) {
         Statement statement = addChild(child);
         statements.add(statement);
         if (statement instanceof FunctionDefinitionStatement) {
             FunctionDefinitionStatement function = (FunctionDefinitionStatement) statement;
+            function.setIndex(functionCount++);
             functions.put(function.getName(), function);
+            definitions.merge(function.getName(), 1, Integer::sum);
+        }
+    }
+
+    // replaces statements [from, to) in place, for incremental parsing.  The
+    // function table only changes for the functions replaced, unless a name
+    // is defined more than once, and then which definition it holds depends
+    // on every statement
+    public void replaceStatements(int from, int to, List<? extends Statement> replacements) {
+        replaceChildren(from, to, replacements);
+        List<Statement> range = statements.subList(from, to);
+        boolean duplicates = false;
+        for (Statement statement : range) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                String name = ((FunctionDefinitionStatement) statement).getName();
+                if (definitions.merge(name, -1, Integer::sum) == 0) {
+                    definitions.remove(name);
+                    functions.remove(name);
+                } else {
+                    duplicates = true;
+                }
+            }
+        }
+        range.clear();
+        range.addAll(replacements);
+        for (Statement statement : replacements) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                FunctionDefinitionStatement function = (FunctionDefinitionStatement) statement;
+                function.setIndex(functionCount++);
+                functions.put(function.getName(), function);
+                duplicates |= definitions.merge(function.getName(), 1, Integer::sum) > 1;
+            }
+        }
+        if (duplicates) {
+            // the last definition of a name is the one called, as it was when
+            // the statements were added
+            for (Statement statement : statements) {
+                if (statement instanceof FunctionDefinitionStatement) {
+                    functions.put(((FunctionDefinitionStatement) statement).getName(), (FunctionDefinitionStatement) statement);
+                }
+            }
         }
     }
 
@@ -58,6 +113,10 @@ public class CatScriptProgram extends Statement {
         return functions.get(name);
     }
 
+    public int getGlobalSlots() {
+        return globalSlots;
+    }
+
     @Override
     public void validate(SymbolTable symbolTable) {
         if (expression != null) {
@@ -67,10 +126,56 @@ public class CatScriptProgram extends Statement {
                 statement.validate(symbolTable);
             }
         }
+        globalSlots = symbolTable.getFrameSize();
+    }
+
+    // function bodies only see the globals declared before them, so each one
+    // is checked against a snapshot of the table taken where it is declared.
+    // The bodies run once the top level is done and the global scope they
+    // read no longer changes
+    @Override
+    protected void validate(SymbolTable symbolTable, ForkJoinPool pool) {
+        if (expression != null) {
+            validate(symbolTable);
+            return;
+        }
+        List<ForkJoinTask<?>> bodies = new ArrayList<>();
+        for (Statement statement : statements) {
+            if (statement instanceof FunctionDefinitionStatement) {
+                SymbolTable snapshot = symbolTable.snapshot();
+                bodies.add(ForkJoinTask.adapt(() -> statement.validate(snapshot)));
+            } else {
+                statement.validate(symbolTable);
+            }
+        }
+        globalSlots = symbolTable.getFrameSize();
+        for (ForkJoinTask<?> body : bodies) {
+            pool.execute(body);
+        }
+        for (ForkJoinTask<?> body : bodies) {
+            body.join();
+        }
     }
 
+    // runs on a new runtime and returns what was printed
+    public String run() {
+        CatscriptRuntime runtime = new CatscriptRuntime(globalSlots);
+        execute(runtime);
+        return runtime.getOutput();
+    }
+
+    // the API from before runtimes: execute() appends what run() printed to
+    // getOutput().  Only these wrappers touch the buffer, runs never do
     public void execute() {
-        execute(new CatscriptRuntime());
+        output.append(run());
+    }
+
+    public void print(Object value) {
+        output.append(value).append('\n');
+    }
+
+    public String getOutput() {
+        return output.toString();
     }
 
     //==============================================================
@@ -79,7 +184,7 @@ public class CatScriptProgram extends Statement {
     @Override
     public void execute(CatscriptRuntime runtime) {
         if (expression != null) {
-            print(expression.evaluate(runtime));
+            runtime.print(expression.evaluate(runtime));
         } else {
             for (Statement statement : statements) {
                 if (!(statement instanceof FunctionDefinitionStatement)) {
@@ -89,6 +194,20 @@ public class CatScriptProgram extends Statement {
         }
     }
 
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        if (isExpression()) {
+            ObjectClosure value = expression.compileClosure(compiler);
+            return (runtime, frame) -> {
+                runtime.print(value.evaluate(runtime, frame));
+                return false;
+            };
+        } else {
+            // function definitions bind their bodies and compile to no-ops
+            return compiler.block(statements);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         if (isExpression()) {
@@ -104,12 +223,15 @@ public class CatScriptProgram extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
+        if (!code.getOptions().isMetered()) {
+            code.loadRuntime();
+            code.invokeRuntime("checkUnmetered", "()V");
+        }
         if (isExpression()) {
-            code.addVarInstruction(Opcodes.ALOAD, 0);
+            code.loadRuntime();
             getExpression().compile(code);
             box(code, getExpression().getType());
-            code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(CatScriptProgram.class),
-                    "print", "(Ljava/lang/Object;)V");
+            code.invokeRuntime("print", "(Ljava/lang/Object;)V");
             code.addInstruction(Opcodes.RETURN);
         } else {
             for (Statement statement : statements) {
@@ -119,5 +241,46 @@ public class CatScriptProgram extends Statement {
         }
     }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
 
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
+        out.writeNodes(statements);
+        out.writeInt(globalSlots);
+        // a verified program has one definition per name, by statement index
+        List<Integer> table = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i) instanceof FunctionDefinitionStatement) {
+                table.add(i);
+            }
+        }
+        out.writeInt(table.size());
+        for (int index : table) {
+            out.writeString(((FunctionDefinitionStatement) statements.get(index)).getName());
+            out.writeInt(index);
+        }
+    }
+
+    public static CatScriptProgram read(AstReader in) {
+        CatScriptProgram program = new CatScriptProgram();
+        Expression expression = in.readNode();
+        if (expression != null) {
+            program.setExpression(expression);
+        }
+        for (Statement statement : in.<Statement>readNodes()) {
+            program.addStatement(statement);
+        }
+        program.globalSlots = in.readInt();
+        // the function table is read as written
+        int functions = in.readInt();
+        program.functions.clear();
+        for (int i = 0; i < functions; i++) {
+            String name = in.readString();
+            program.functions.put(name, (FunctionDefinitionStatement) program.statements.get(in.readInt()));
+        }
+        return program;
+    }
 }
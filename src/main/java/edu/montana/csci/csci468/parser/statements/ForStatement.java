@@ -1,22 +1,31 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
+import edu.montana.csci.csci468.parser.ParseElement;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ForStatement extends Statement {
     private Expression expression;
     private String variableName;
     private List<Statement> body;
+    private int slot;
+    private FunctionDefinitionStatement function;
 
     public void setExpression(Expression expression) {
         this.expression = addChild(expression);
@@ -27,7 +36,7 @@ public class ForStatement extends Statement {
     }
 
     public void setBody(List<Statement> statements) {
-        this.body = new LinkedList<>();
+        this.body = new ArrayList<>(statements.size());
         for (Statement statement : statements) {
             this.body.add(addChild(statement));
         }
@@ -47,6 +56,7 @@ public class ForStatement extends Statement {
 
     @Override
     public void validate(SymbolTable symbolTable) {
+        function = getFunctionDefinitionStatement();
         symbolTable.pushScope();
         if (symbolTable.hasSymbol(variableName)) {
             addError(ErrorType.DUPLICATE_NAME);
@@ -54,10 +64,10 @@ public class ForStatement extends Statement {
             expression.validate(symbolTable);
             CatscriptType type = expression.getType();
             if (type instanceof CatscriptType.ListType) {
-                symbolTable.registerSymbol(variableName, getComponentType());
+                slot = symbolTable.registerSymbol(variableName, getComponentType());
             } else {
                 addError(ErrorType.INCOMPATIBLE_TYPES, getStart());
-                symbolTable.registerSymbol(variableName, CatscriptType.OBJECT);
+                slot = symbolTable.registerSymbol(variableName, CatscriptType.OBJECT);
             }
         }
         for (Statement statement : body) {
@@ -66,6 +76,17 @@ public class ForStatement extends Statement {
         symbolTable.popScope();
     }
 
+    public FunctionDefinitionStatement getFunctionDefinitionStatement() {
+        ParseElement parent = getParent();
+        while (parent != null) {
+            if (parent instanceof FunctionDefinitionStatement) {
+                return (FunctionDefinitionStatement) parent;
+            }
+            parent = parent.getParent();
+        }
+        return null;
+    }
+
     private CatscriptType getComponentType() {
         return ((CatscriptType.ListType) expression.getType()).getComponentType();
     }
@@ -76,14 +97,36 @@ public class ForStatement extends Statement {
     @Override
     public void execute(CatscriptRuntime runtime) {
         List result = (List) expression.evaluate(runtime);
-        runtime.pushScope();
+        TieredCompiler.TieredFunction tiering = null;
+        if (function != null && runtime.getTieredCompiler() != null) {
+            tiering = runtime.getTieredCompiler().tieringOf(function);
+        }
         for (Object o : result) {
-            runtime.setValue(variableName, o);
+            if (tiering != null) {
+                tiering.countLoopIteration();
+            }
+            runtime.countLoopIteration();
+            runtime.setValue(0, slot, o);
             for (Statement statement : body) {
                 statement.execute(runtime);
             }
         }
-        runtime.popScope();
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure list = expression.compileClosure(compiler);
+        StatementClosure block = compiler.block(body);
+        int slot = this.slot;
+        return (runtime, frame) -> {
+            for (Object o : (List<?>) list.evaluate(runtime, frame)) {
+                frame[slot] = o;
+                if (block.execute(runtime, frame)) {
+                    return true;
+                }
+            }
+            return false;
+        };
     }
 
     @Override
@@ -94,6 +137,8 @@ public class ForStatement extends Statement {
     @Override
     public void compile(ByteCodeGenerator code) {
         Integer iteratorSlot = code.nextLocalStorageSlot();
+        boolean metered = code.getOptions().isMetered();
+        Integer reservedSlot = metered ? code.createLocalStorageSlotFor(reservedIterations(getLoopDepth())) : null;
 
         Label iterateStart = new Label();
         Label end = new Label();
@@ -102,7 +147,10 @@ public class ForStatement extends Statement {
         code.addMethodInstruction(Opcodes.INVOKEINTERFACE, "java/util/List", "iterator", "()Ljava/util/Iterator;");
 
         code.addVarInstruction(Opcodes.ASTORE, iteratorSlot);
-
+        if (metered) {
+            code.addInstruction(Opcodes.ICONST_0);
+            code.addVarInstruction(Opcodes.ISTORE, reservedSlot);
+        }
 
         code.addLabel(iterateStart);
         // this is the loop
@@ -110,6 +158,22 @@ public class ForStatement extends Statement {
         code.addMethodInstruction(Opcodes.INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z");
         code.addJumpInstruction(Opcodes.IFEQ, end);
 
+        // the iteration is counted down in a local, and the runtime is only
+        // called when the reserved ones run out, see BudgetMeter
+        if (metered) {
+            Label reserved = new Label();
+            code.addVarInstruction(Opcodes.ILOAD, reservedSlot);
+            code.addInstruction(Opcodes.ICONST_1);
+            code.addInstruction(Opcodes.ISUB);
+            code.addInstruction(Opcodes.DUP);
+            code.addVarInstruction(Opcodes.ISTORE, reservedSlot);
+            code.addJumpInstruction(Opcodes.IFGE, reserved);
+            code.loadRuntime();
+            code.invokeRuntime("reserveLoopIterations", "()I");
+            code.addVarInstruction(Opcodes.ISTORE, reservedSlot);
+            code.addLabel(reserved);
+        }
+
         //set up loop instruction
         code.addVarInstruction(Opcodes.ALOAD, iteratorSlot);
 
@@ -135,7 +199,50 @@ public class ForStatement extends Statement {
 
         //end
         code.addLabel(end);
+        if (metered) {
+            code.loadRuntime();
+            code.addVarInstruction(Opcodes.ILOAD, reservedSlot);
+            code.invokeRuntime("refundLoopIterations", "(I)V");
+        }
+    }
 
+    // names the local that holds the iterations a compiled loop has reserved
+    // and not run, by how deeply the loop is nested, so a return can find the
+    // locals of every loop it leaves
+    static String reservedIterations(int loopDepth) {
+        return "$reserved" + loopDepth;
     }
 
+    // enclosing loops within the same function
+    int getLoopDepth() {
+        int depth = 0;
+        for (ParseElement parent = getParent(); parent != null && !(parent instanceof FunctionDefinitionStatement); parent = parent.getParent()) {
+            if (parent instanceof ForStatement) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(variableName);
+        out.writeNode(expression);
+        out.writeNodes(body);
+        out.writeInt(slot);
+    }
+
+    public static ForStatement read(AstReader in) {
+        ForStatement statement = new ForStatement();
+        statement.setVariableName(in.readString());
+        statement.setExpression(in.readNode());
+        statement.setBody(in.readNodes());
+        statement.slot = in.readInt();
+        statement.function = in.getFunction();
+        return statement;
+    }
 }
@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
@@ -32,8 +37,16 @@ public class FunctionCallStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        Object evaluate = expression.evaluate(runtime);
-        runtime.setValue(getName(),evaluate);
+        expression.evaluate(runtime);
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure call = expression.compileClosure(compiler);
+        return (runtime, frame) -> {
+            call.evaluate(runtime, frame);
+            return false;
+        };
     }
 
     @Override
@@ -45,4 +58,17 @@ public class FunctionCallStatement extends Statement {
     public void compile(ByteCodeGenerator code) {
         expression.compile(code);
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
+    }
+
+    public static FunctionCallStatement read(AstReader in) {
+        return new FunctionCallStatement(in.readNode());
+    }
 }
@@ -1,14 +1,18 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.eval.ReturnException;
 import edu.montana.csci.csci468.parser.*;
 import edu.montana.csci.csci468.parser.expressions.TypeLiteral;
 import org.objectweb.asm.Opcodes;
 
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
@@ -18,7 +22,10 @@ public class FunctionDefinitionStatement extends Statement {
     private CatscriptType type;
     private List<CatscriptType> argumentTypes = new ArrayList<>();
     private List<String> argumentNames = new ArrayList<>();
-    private LinkedList<Statement> body;
+    private List<Statement> body;
+    private int frameSize;
+    // numbers the functions of a program, see CatScriptProgram.addStatement()
+    private int index = -1;
 
     public void setName(String name) {
         this.name = name;
@@ -63,8 +70,17 @@ public class FunctionDefinitionStatement extends Statement {
         return argumentNames.size();
     }
 
+    // where tables kept by function, like TieredCompiler's, hold this one
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public void setBody(List<Statement> statements) {
-        this.body = new LinkedList<>();
+        this.body = new ArrayList<>(statements.size());
         for (Statement statement : statements) {
             this.body.add(addChild(statement));
         }
@@ -76,7 +92,7 @@ public class FunctionDefinitionStatement extends Statement {
 
     @Override
     public void validate(SymbolTable symbolTable) {
-        symbolTable.pushScope();
+        symbolTable.pushFrame();
         for (int i = 0; i < getParameterCount(); i++) {
             if (symbolTable.hasSymbol(getParameterName(i))) {
                 addError(ErrorType.DUPLICATE_NAME);
@@ -87,7 +103,7 @@ public class FunctionDefinitionStatement extends Statement {
         for (Statement statement : body) {
             statement.validate(symbolTable);
         }
-        symbolTable.popScope();
+        frameSize = symbolTable.popFrame();
         if (!type.equals(CatscriptType.VOID)) {
             if (!validateReturnCoverage(body)) {
                 addError(ErrorType.MISSING_RETURN_STATEMENT);
@@ -130,27 +146,52 @@ public class FunctionDefinitionStatement extends Statement {
         return validity;
     }
 
-    public Object invoke(CatscriptRuntime runtime, List<Object> args) {
-        runtime.pushScope();
-        int parameterCount = getParameterCount();
-        for (int i = 0; i < parameterCount; i++) {
-            runtime.setValue(getParameterName(i), args.get(i));
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    // the arguments are passed in the first slots of the new frame
+    public Object invoke(CatscriptRuntime runtime, Object[] frame) {
+        TieredCompiler tieredCompiler = runtime.getTieredCompiler();
+        if (tieredCompiler != null) {
+            TieredCompiler.TieredFunction tiering = tieredCompiler.tieringOf(this);
+            MethodHandle compiled = tiering.getCompiledVersion();
+            if (compiled != null) {
+                return invokeCompiled(compiled, runtime, frame);
+            }
+            tiering.countInvocation();
         }
+        Object[] previousFrame = runtime.pushFrame(frame);
         Object returnVal = null;
         try {
             for (Statement statement : body) {
                 statement.execute(runtime);
             }
         } catch (ReturnException re) {
-            returnVal = re.getValue();
+            returnVal = re.takeValue();
         } finally {
-            runtime.popScope();
+            runtime.popFrame(previousFrame);
         }
         return returnVal;
     }
 
-    public String getDescriptor() {
-        StringBuilder sb = new StringBuilder("(");
+    // the compiled version is metered and takes the CallDepth of the call,
+    // and reads its arguments from the frame
+    private Object invokeCompiled(MethodHandle compiled, CatscriptRuntime runtime, Object[] frame) {
+        try {
+            return (Object) compiled.invokeExact(runtime.nextCallDepth(), frame);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    // compiled functions take the runtime of the run ahead of their
+    // arguments, and metered ones the CallDepth they run at instead
+    public String getDescriptor(CompilerOptions options) {
+        StringBuilder sb = new StringBuilder("(").append(options.isMetered()
+                ? ByteCodeGenerator.CALL_DEPTH_DESCRIPTOR : ByteCodeGenerator.RUNTIME_DESCRIPTOR);
         for (CatscriptType argumentType : argumentTypes) {
             if (argumentType.equals(CatscriptType.BOOLEAN) || argumentType.equals(CatscriptType.INT)) {
                 sb.append("I");
@@ -169,6 +210,10 @@ public class FunctionDefinitionStatement extends Statement {
         return sb.toString();
     }
 
+    public String getStaticDescriptor(String programInternalName, CompilerOptions options) {
+        return "(L" + programInternalName + ";" + getDescriptor(options).substring(1);
+    }
+
     //==============================================================
     // Implementation
     //==============================================================
@@ -180,6 +225,12 @@ public class FunctionDefinitionStatement extends Statement {
         //super.execute(runtime);
     }
 
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        compiler.getFunction(name).setBody(compiler.block(body));
+        return compiler.noOp();
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -187,8 +238,17 @@ public class FunctionDefinitionStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        code.pushMethod(Opcodes.ACC_PUBLIC, name, getDescriptor());
-        code.addVarInstruction(Opcodes.ALOAD, 0);
+        if (code.getOptions().isStaticFunctions()) {
+            // the program instance is still local 0, as the first parameter
+            code.pushMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, getStaticDescriptor(code.getProgramInternalName(), code.getOptions()));
+        } else {
+            code.pushMethod(Opcodes.ACC_PUBLIC, name, getDescriptor(code.getOptions()));
+        }
+        if (code.getOptions().isMetered()) {
+            code.createCallDepthSlot();
+        } else {
+            code.createRuntimeSlot();
+        }
         for (String argumentName : argumentNames) {
             code.createLocalStorageSlotFor(argumentName);
         }
@@ -200,4 +260,43 @@ public class FunctionDefinitionStatement extends Statement {
         }
         code.popMethod();
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(name);
+        out.writeType(type);
+        out.writeInt(argumentNames.size());
+        for (int i = 0; i < argumentNames.size(); i++) {
+            out.writeString(argumentNames.get(i));
+            out.writeType(argumentTypes.get(i));
+        }
+        // the parameter and return type literals are the children before the body
+        List<ParseElement> children = getChildren();
+        out.writeNodes(children.subList(0, children.size() - body.size()));
+        out.writeNodes(body);
+        out.writeInt(frameSize);
+    }
+
+    public static FunctionDefinitionStatement read(AstReader in) {
+        FunctionDefinitionStatement function = new FunctionDefinitionStatement();
+        function.setName(in.readString());
+        function.type = in.readType();
+        int parameters = in.readInt();
+        for (int i = 0; i < parameters; i++) {
+            function.argumentNames.add(in.readString());
+            function.argumentTypes.add(in.readType());
+        }
+        for (TypeLiteral typeLiteral : in.<TypeLiteral>readNodes()) {
+            function.addChild(typeLiteral);
+        }
+        FunctionDefinitionStatement enclosing = in.setFunction(function);
+        function.setBody(in.readNodes());
+        in.setFunction(enclosing);
+        function.frameSize = in.readInt();
+        return function;
+    }
 }
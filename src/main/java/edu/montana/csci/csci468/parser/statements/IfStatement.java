@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.BooleanClosure;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -10,10 +15,9 @@ import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
 
 public class IfStatement extends Statement {
     private Expression expression;
@@ -33,7 +37,7 @@ public class IfStatement extends Statement {
     }
 
     public void setTrueStatements(List<Statement> statements) {
-        this.trueStatements = new LinkedList<>();
+        this.trueStatements = new ArrayList<>(statements.size());
         for (Statement statement : statements) {
             this.trueStatements.add(addChild(statement));
         }
@@ -44,7 +48,7 @@ public class IfStatement extends Statement {
     }
 
     public void setElseStatements(List<Statement> statements) {
-        this.elseStatements = new LinkedList<>();
+        this.elseStatements = new ArrayList<>(statements.size());
         for (Statement statement : statements) {
             this.elseStatements.add(addChild(statement));
         }
@@ -73,8 +77,7 @@ public class IfStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        Object result = expression.evaluate(runtime);
-        if (Objects.equals(result, Boolean.TRUE)) {
+        if (expression.evaluateBoolean(runtime)) {
             for (Statement trueStatement : trueStatements) {
                 trueStatement.execute(runtime);
             }
@@ -85,6 +88,20 @@ public class IfStatement extends Statement {
         }
     }
 
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        BooleanClosure condition = expression.compileBooleanClosure(compiler);
+        StatementClosure trueBlock = compiler.block(trueStatements);
+        StatementClosure elseBlock = compiler.block(elseStatements);
+        return (runtime, frame) -> {
+            if (condition.evaluate(runtime, frame)) {
+                return trueBlock.execute(runtime, frame);
+            } else {
+                return elseBlock.execute(runtime, frame);
+            }
+        };
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -109,4 +126,23 @@ public class IfStatement extends Statement {
         }
         code.addLabel(end);
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
+        out.writeNodes(trueStatements);
+        out.writeNodes(elseStatements);
+    }
+
+    public static IfStatement read(AstReader in) {
+        IfStatement statement = new IfStatement();
+        statement.setExpression(in.readNode());
+        statement.setTrueStatements(in.readNodes());
+        statement.setElseStatements(in.readNodes());
+        return statement;
+    }
 }
@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Opcodes;
@@ -28,7 +33,16 @@ public class PrintStatement extends Statement {
     //==============================================================
     @Override
     public void execute(CatscriptRuntime runtime) {
-        getProgram().print(expression.evaluate(runtime));
+        runtime.print(expression.evaluate(runtime));
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure value = expression.compileClosure(compiler);
+        return (runtime, frame) -> {
+            runtime.print(value.evaluate(runtime, frame));
+            return false;
+        };
     }
 
     @Override
@@ -38,12 +52,25 @@ public class PrintStatement extends Statement {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        code.addVarInstruction(Opcodes.ALOAD, 0);
+        code.loadRuntime();
         getExpression().compile(code);
         box(code, getExpression().getType());
-        code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, ByteCodeGenerator.internalNameFor(CatScriptProgram.class),
-                 "print", "(Ljava/lang/Object;)V");
+        code.invokeRuntime("print", "(Ljava/lang/Object;)V");
+
+    }
 
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
     }
 
+    public static PrintStatement read(AstReader in) {
+        PrintStatement statement = new PrintStatement();
+        statement.setExpression(in.readNode());
+        return statement;
+    }
 }
@@ -1,8 +1,10 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
-import edu.montana.csci.csci468.eval.ReturnException;
 import edu.montana.csci.csci468.parser.*;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Opcodes;
@@ -70,7 +72,19 @@ public class ReturnStatement extends Statement {
         if (expression != null) {
             value = expression.evaluate(runtime);
         }
-        throw new ReturnException(value);
+        throw runtime.returnWith(value);
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        if (expression == null) {
+            return (runtime, frame) -> true;
+        }
+        ObjectClosure value = expression.compileClosure(compiler);
+        return (runtime, frame) -> {
+            runtime.setReturnValue(value.evaluate(runtime, frame));
+            return true;
+        };
     }
 
     @Override
@@ -86,6 +100,7 @@ public class ReturnStatement extends Statement {
             if(getFunctionDefinitionStatement().getType().equals(CatscriptType.OBJECT)) {
                 box(code, expression.getType());
             }
+            refundLoopIterations(code);
 
             if(expression.getType().equals(CatscriptType.BOOLEAN) || expression.getType().equals(CatscriptType.INT)) {
                 if(getFunctionDefinitionStatement().getType().equals(CatscriptType.OBJECT)) {
@@ -98,8 +113,45 @@ public class ReturnStatement extends Statement {
                 code.addInstruction(Opcodes.ARETURN);
             }
         } else {
+            refundLoopIterations(code);
             code.addInstruction(Opcodes.RETURN);
         }
     }
 
-}
\ No newline at end of file
+    // hands back what the loops this return leaves have reserved and not run,
+    // see ForStatement.compile()
+    private void refundLoopIterations(ByteCodeGenerator code) {
+        if (!code.getOptions().isMetered()) {
+            return;
+        }
+        int loops = 0;
+        for (ParseElement parent = getParent(); !(parent instanceof FunctionDefinitionStatement); parent = parent.getParent()) {
+            if (parent instanceof ForStatement) {
+                loops++;
+            }
+        }
+        for (int depth = 0; depth < loops; depth++) {
+            code.loadRuntime();
+            code.addVarInstruction(Opcodes.ILOAD, code.resolveLocalStorageSlotFor(ForStatement.reservedIterations(depth)));
+            code.invokeRuntime("refundLoopIterations", "(I)V");
+        }
+    }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeNode(expression);
+    }
+
+    public static ReturnStatement read(AstReader in) {
+        ReturnStatement statement = new ReturnStatement();
+        Expression expression = in.readNode();
+        if (expression != null) {
+            statement.setExpression(expression);
+        }
+        return statement;
+    }
+}
@@ -1,6 +1,8 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.parser.ParseElement;
 
@@ -10,4 +12,8 @@ public abstract class Statement extends ParseElement {
         throw new UnsupportedOperationException("execute needs to be implemented for " + this.getClass().getName());
     }
 
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        throw new UnsupportedOperationException("compileClosure needs to be implemented for " + this.getClass().getName());
+    }
+
 }
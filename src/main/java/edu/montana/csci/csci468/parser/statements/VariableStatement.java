@@ -1,7 +1,12 @@
 package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
+import edu.montana.csci.csci468.closure.ObjectClosure;
+import edu.montana.csci.csci468.closure.StatementClosure;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.AstReader;
+import edu.montana.csci.csci468.parser.AstWriter;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -14,6 +19,7 @@ public class VariableStatement extends Statement {
     private String variableName;
     private CatscriptType explicitType;
     private CatscriptType type;
+    private int slot;
 
     public Expression getExpression() {
         return expression;
@@ -56,7 +62,7 @@ public class VariableStatement extends Statement {
             } else {
                 type = getExpression().getType();
             }
-            symbolTable.registerSymbol(variableName, type);
+            slot = symbolTable.registerSymbol(variableName, type);
         }
     }
 
@@ -70,7 +76,17 @@ public class VariableStatement extends Statement {
     @Override
     public void execute(CatscriptRuntime runtime) {
         Object result = expression.evaluate(runtime);
-        runtime.setValue(variableName, result);
+        runtime.setValue(0, slot, result);
+    }
+
+    @Override
+    public StatementClosure compileClosure(ClosureCompiler compiler) {
+        ObjectClosure value = expression.compileClosure(compiler);
+        int slot = this.slot;
+        return (runtime, frame) -> {
+            frame[slot] = value.evaluate(runtime, frame);
+            return false;
+        };
     }
 
     @Override
@@ -103,4 +119,27 @@ public class VariableStatement extends Statement {
             }
         }
     }
+
+    //==============================================================
+    // Serialization
+    //==============================================================
+
+    @Override
+    public void write(AstWriter out) {
+        out.writeString(variableName);
+        out.writeType(explicitType);
+        out.writeNode(expression);
+        out.writeType(type);
+        out.writeInt(slot);
+    }
+
+    public static VariableStatement read(AstReader in) {
+        VariableStatement statement = new VariableStatement();
+        statement.setVariableName(in.readString());
+        statement.setExplicitType(in.readType());
+        statement.setExpression(in.readNode());
+        statement.type = in.readType();
+        statement.slot = in.readInt();
+        return statement;
+    }
 }
@@ -1,28 +1,135 @@
 package edu.montana.csci.csci468.tokenizer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
 public class CatScriptTokenizer {
 
     TokenList tokenList;
-    String src;
+    SourceText src;
+    private final IdentifierPool identifiers;
+    private LineIndex lineIndex;
+    private boolean finished = false;
+    // made by streaming(), whose tokens a parse lets go of as it goes
+    private boolean streaming = false;
+    // set once it does, lines are then found around the token asking
+    boolean releasing = false;
     int position = 0;
     int line = 1;
     int lineOffset = 0;
 
+    // chunk tokenizers (see ParallelTokenizer) stop at end, and remember where
+    // their last scan started in case it ran into the end of the chunk
+    private int end = Integer.MAX_VALUE;
+    int lastScanStart;
+    int lastScanLine;
+    int lastScanLineOffset;
+    int tokensBeforeLastScan;
+    boolean truncated = false;
+
     public CatScriptTokenizer(String source) {
+        this(SourceText.of(source));
+        tokenize();
+    }
+
+    private CatScriptTokenizer(SourceText source) {
+        this(source, new IdentifierPool());
+    }
+
+    private CatScriptTokenizer(SourceText source, IdentifierPool identifiers) {
         src = source;
+        this.identifiers = identifiers;
         tokenList = new TokenList(this);
-        tokenize();
+    }
+
+    // streaming tokenizers scan the next token only when the token list is
+    // asked for it, and read characters from the source as they are reached.
+    // What was read and scanned stays in memory, see SourceText
+    public static CatScriptTokenizer streaming(SourceText source) {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer(source);
+        tokenizer.streaming = true;
+        return tokenizer;
+    }
+
+    public static CatScriptTokenizer streaming(CharSequence source) {
+        return streaming(SourceText.of(source));
+    }
+
+    public static CatScriptTokenizer streaming(Reader source) {
+        return streaming(SourceText.of(source));
+    }
+
+    public static CatScriptTokenizer streaming(Path file) throws IOException {
+        return streaming(SourceText.map(file));
+    }
+
+    // a streaming tokenizer that starts scanning at position, which must be
+    // between two tokens of the source, sharing another tokenizer's identifiers
+    public static CatScriptTokenizer streamingFrom(SourceText source, int position, int line, int lineOffset,
+                                                   IdentifierPool identifiers) {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer(source, identifiers);
+        tokenizer.position = position;
+        tokenizer.line = line;
+        tokenizer.lineOffset = lineOffset;
+        return tokenizer;
+    }
+
+    static CatScriptTokenizer chunk(SourceText source, int start, int end, int line, int lineOffset) {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer(source);
+        tokenizer.position = start;
+        tokenizer.end = end;
+        tokenizer.line = line;
+        tokenizer.lineOffset = lineOffset;
+        return tokenizer;
+    }
+
+    // tokenizes a chunk without adding EOF
+    void tokenizeChunk() {
+        consumeWhitespace();
+        while (!tokenizationEnd()) {
+            lastScanStart = position;
+            lastScanLine = line;
+            lastScanLineOffset = lineOffset;
+            tokensBeforeLastScan = tokenList.scannedTokens();
+            scanToken();
+            truncated = tokenizationEnd();
+            consumeWhitespace();
+        }
+    }
+
+    void finish(int position, int line, int lineOffset) {
+        this.position = position;
+        this.line = line;
+        this.lineOffset = lineOffset;
+        tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
+        finished = true;
     }
 
     private void tokenize() {
+        while (scanNextToken()) {
+        }
+    }
+
+    // adds the next token to the token list, returns false once EOF has been added
+    boolean scanNextToken() {
+        if (finished) {
+            return false;
+        }
+        int tokens = tokenList.scannedTokens();
         consumeWhitespace();
         while (!tokenizationEnd()) {
             scanToken();
             consumeWhitespace();
+            if (tokenList.scannedTokens() > tokens) {
+                return true;
+            }
         }
         tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
+        finished = true;
+        return true;
     }
 
     private void scanToken() {
@@ -54,13 +161,14 @@ public class CatScriptTokenizer {
                     consumeWhitespace();
                 }
                 if (isQuotation(peek())) {
-                    tokenList.addToken(STRING, src.substring(start, position), start, position, line, lineOffset);
+                    tokenList.addToken(STRING, null, start, position, line, lineOffset);
                     takeChar();
                 } else {
                     tokenList.addToken(ERROR, "<Expected Token: [ \" ]>", start, position, line, lineOffset);
                 }
             } else {
                 position--;
+                lineOffset--;
                 return false;
             }
         } else {
@@ -75,12 +183,7 @@ public class CatScriptTokenizer {
             while (isAlphaNumeric(peek())) {
                 takeChar();
             }
-            String value = src.substring(start, position);
-            if (KEYWORDS.containsKey(value)) {
-                tokenList.addToken(KEYWORDS.get(value), value, start, position, line, lineOffset);
-            } else {
-                tokenList.addToken(IDENTIFIER, value, start, position, line, lineOffset);
-            }
+            tokenList.addToken(TokenType.keyword(src, start, position), null, start, position, line, lineOffset);
             return true;
         } else {
             return false;
@@ -93,7 +196,7 @@ public class CatScriptTokenizer {
             while (isDigit(peek())) {
                 takeChar();
             }
-            tokenList.addToken(INTEGER, src.substring(start, position), start, position, line, lineOffset);
+            tokenList.addToken(INTEGER, null, start, position, line, lineOffset);
             return true;
         } else {
             return false;
@@ -232,7 +335,7 @@ public class CatScriptTokenizer {
     }
 
     private boolean tokenizationEnd() {
-        return position >= src.length();
+        return position >= end || !src.hasCharAt(position);
     }
 
     public boolean matchAndConsume(char c) {
@@ -247,6 +350,58 @@ public class CatScriptTokenizer {
         return tokenList;
     }
 
+    // every identifier token of this tokenizer gets its value from here
+    public IdentifierPool getIdentifierPool() {
+        return identifiers;
+    }
+
+    String valueOf(TokenType type, int start, int end) {
+        if (type == IDENTIFIER) {
+            return identifiers.intern(src, start, end);
+        }
+        return src.substring(start, end);
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    // the content of the line the offset is on, or null if the source has
+    // let go of its start
+    String lineContent(int offset, int line) {
+        if (!releasing) {
+            return getLineIndex().getLineContent(line);
+        }
+        int start = lineStart(offset);
+        if (start < 0) {
+            return null;
+        }
+        int end = offset;
+        while (src.hasCharAt(end) && src.charAt(end) != '\n') {
+            end++;
+        }
+        return src.substring(start, end);
+    }
+
+    // where the line the offset is on starts, or -1 if the source has let go
+    // of the character before it
+    int lineStart(int offset) {
+        int first = src.firstHeld();
+        int start = offset;
+        while (start > first && src.charAt(start - 1) != '\n') {
+            start--;
+        }
+        return start <= first && first > 0 ? -1 : start;
+    }
+
+    // built on first use, most sources are never asked for a line
+    public LineIndex getLineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new LineIndex(src);
+        }
+        return lineIndex;
+    }
+
     @Override
     public String toString() {
         if (tokenizationEnd()) {
@@ -0,0 +1,77 @@
+package edu.montana.csci.csci468.tokenizer;
+
+// Interns identifiers for one compilation, so every occurrence of a name is
+// the same String.  Lookups hash the characters in place and only allocate
+// the first time a name is seen.  Not thread safe, each tokenizer owns one.
+public class IdentifierPool {
+
+    private String[] names = new String[256];
+    private int[] hashes = new int[256];
+    private int size = 0;
+
+    public String intern(CharSequence src, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + src.charAt(i);
+        }
+        int mask = names.length - 1;
+        for (int index = spread(hash) & mask; ; index = (index + 1) & mask) {
+            String name = names[index];
+            if (name == null) {
+                name = src.subSequence(start, end).toString();
+                insert(index, name, hash);
+                return name;
+            }
+            if (hashes[index] == hash && matches(name, src, start, end)) {
+                return name;
+            }
+        }
+    }
+
+    public String intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void insert(int index, String name, int hash) {
+        names[index] = name;
+        hashes[index] = hash;
+        size++;
+        if (size * 2 > names.length) {
+            String[] oldNames = names;
+            int[] oldHashes = hashes;
+            names = new String[oldNames.length * 2];
+            hashes = new int[oldNames.length * 2];
+            int mask = names.length - 1;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    int slot = spread(oldHashes[i]) & mask;
+                    while (names[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    names[slot] = oldNames[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence src, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != src.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
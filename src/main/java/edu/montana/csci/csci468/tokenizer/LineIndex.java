@@ -0,0 +1,61 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.util.Arrays;
+
+// Offsets of the first character of every line in a source, built once so
+// that line content and offset to line/column lookups don't rescan it.
+// Lines are numbered from 1 and split on '\n' like String.split("\n", -1).
+public class LineIndex {
+
+    private final SourceText src;
+    private final int[] lineStarts;
+
+    public LineIndex(String src) {
+        this(SourceText.of(src));
+    }
+
+    public LineIndex(SourceText src) {
+        this.src = src;
+        int length = src.length();
+        int lines = 1;
+        for (int i = 0; i < length; i++) {
+            if (src.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        lineStarts = new int[lines];
+        int line = 1;
+        for (int i = 0; i < length; i++) {
+            if (src.charAt(i) == '\n') {
+                lineStarts[line++] = i + 1;
+            }
+        }
+    }
+
+    public int getLineCount() {
+        return lineStarts.length;
+    }
+
+    public int getLineStart(int line) {
+        return lineStarts[line - 1];
+    }
+
+    // the offset of the '\n' that ends the line, or the end of the source
+    public int getLineEnd(int line) {
+        return line < lineStarts.length ? lineStarts[line] - 1 : src.length();
+    }
+
+    public String getLineContent(int line) {
+        return src.substring(getLineStart(line), getLineEnd(line));
+    }
+
+    public int getLine(int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    // zero based column of the offset within its line
+    public int getColumn(int offset) {
+        return offset - getLineStart(getLine(offset));
+    }
+}
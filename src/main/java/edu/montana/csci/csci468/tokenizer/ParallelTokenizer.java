@@ -0,0 +1,98 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Tokenizes large sources by splitting them into chunks that end just after
+// a newline and tokenizing the chunks in parallel.  Tokens can only span a
+// newline inside a string literal, so a chunk whose last scan ran into the
+// end of the chunk is re-scanned sequentially from that token on when the
+// chunks are stitched together.  Every other chunk is used as is, with its
+// line numbers moved down by the lines before it.
+public class ParallelTokenizer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelTokenizer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelTokenizer(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public CatScriptTokenizer tokenize(CharSequence source) {
+        return tokenize(SourceText.of(source));
+    }
+
+    // the source is read from several threads, so it must not be Reader backed
+    public CatScriptTokenizer tokenize(SourceText source) {
+        List<Integer> boundaries = chunkBoundaries(source);
+        List<ForkJoinTask<CatScriptTokenizer>> chunks = new ArrayList<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            int start = boundaries.get(i);
+            int end = i == boundaries.size() - 2 ? Integer.MAX_VALUE : boundaries.get(i + 1);
+            chunks.add(pool.submit(() -> {
+                CatScriptTokenizer chunk = CatScriptTokenizer.chunk(source, start, end, 1, 0);
+                chunk.tokenizeChunk();
+                return chunk;
+            }));
+        }
+
+        CatScriptTokenizer result = CatScriptTokenizer.chunk(source, 0, Integer.MAX_VALUE, 1, 0);
+        TokenList tokens = result.getTokens();
+        int linesBefore = 0;
+        boolean rescan = false;
+        int rescanStart = 0, rescanLine = 0, rescanLineOffset = 0;
+        CatScriptTokenizer chunk = null;
+        int lineDelta = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            if (rescan) {
+                // the previous chunk ended inside a token, so this chunk started
+                // in the wrong state, scan again from the start of that token
+                int end = i == chunks.size() - 1 ? Integer.MAX_VALUE : boundaries.get(i + 1);
+                chunk = CatScriptTokenizer.chunk(source, rescanStart, end, rescanLine, rescanLineOffset);
+                chunk.tokenizeChunk();
+                lineDelta = 0;
+            } else {
+                chunk = chunks.get(i).join();
+                lineDelta = linesBefore;
+            }
+            rescan = chunk.truncated && i < chunks.size() - 1;
+            int keep = rescan ? chunk.tokensBeforeLastScan : chunk.getTokens().scannedTokens();
+            tokens.append(chunk.getTokens(), 0, keep, lineDelta);
+            if (rescan) {
+                rescanStart = chunk.lastScanStart;
+                rescanLine = chunk.lastScanLine + lineDelta;
+                rescanLineOffset = chunk.lastScanLineOffset;
+            }
+            linesBefore = chunk.line + lineDelta - 1;
+        }
+        result.finish(chunk.position, chunk.line + lineDelta, chunk.lineOffset);
+        return result;
+    }
+
+    private List<Integer> chunkBoundaries(SourceText source) {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int length = source.length();
+        int next = chunkSize;
+        while (next < length) {
+            while (next < length && source.charAt(next - 1) != '\n') {
+                next++;
+            }
+            if (next < length) {
+                boundaries.add(next);
+            }
+            next += chunkSize;
+        }
+        boundaries.add(length);
+        return boundaries;
+    }
+}
@@ -0,0 +1,264 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.util.Objects;
+
+// A source being edited, kept as a balanced tree of pieces of text.  An edit
+// makes a new version that shares every piece but the ones it touches, in
+// time logarithmic in the length of the source, and leaves the version it
+// was made from as it was.  Reads go through a cursor on the piece read
+// last, so scanning on from there costs about what it costs in a String.
+// The cursor makes a Rope unsafe to read from more than one thread.
+public final class Rope extends SourceText {
+
+    // the longest piece, longer ones are split and shorter neighbours are
+    // joined as long as they fit
+    static final int PIECE = 1024;
+
+    private static final Node EMPTY = new Leaf("");
+
+    private final Node root;
+    private String piece = "";
+    private int pieceStart = 0;
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    public static Rope of(String text) {
+        return new Rope(build(text));
+    }
+
+    // a new version with [start, end) replaced
+    public Rope replace(int start, int end, String replacement) {
+        Objects.checkFromToIndex(start, end, root.length);
+        return new Rope(replace(root, start, end, replacement));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        int offset = index - pieceStart;
+        if (offset < 0 || offset >= piece.length()) {
+            seek(index);
+            offset = index - pieceStart;
+        }
+        return piece.charAt(offset);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        Objects.checkFromToIndex(start, end, root.length);
+        StringBuilder sb = new StringBuilder(end - start);
+        append(root, start, end, sb);
+        return sb.toString();
+    }
+
+    // the offset of the first c at or after from, or -1
+    public int indexOf(char c, int from) {
+        for (int i = from; i < root.length; i++) {
+            if (charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // the offset of the last c at or before from, or -1
+    public int lastIndexOf(char c, int from) {
+        for (int i = Math.min(from, root.length - 1); i >= 0; i--) {
+            if (charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    long heldChars() {
+        return root.length;
+    }
+
+    int height() {
+        return root.height;
+    }
+
+    private void seek(int index) {
+        Objects.checkIndex(index, root.length);
+        Node node = root;
+        int start = 0;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < start + branch.left.length) {
+                node = branch.left;
+            } else {
+                start += branch.left.length;
+                node = branch.right;
+            }
+        }
+        piece = ((Leaf) node).text;
+        pieceStart = start;
+    }
+
+    private static void append(Node node, int start, int end, StringBuilder sb) {
+        if (start >= end) {
+            return;
+        }
+        if (node instanceof Leaf) {
+            sb.append(((Leaf) node).text, start, end);
+            return;
+        }
+        Branch branch = (Branch) node;
+        int split = branch.left.length;
+        append(branch.left, start, Math.min(end, split), sb);
+        append(branch.right, Math.max(0, start - split), end - split, sb);
+    }
+
+    // edits inside a piece rebuild that piece alone, which keeps typing from
+    // leaving a trail of small pieces behind
+    private static Node replace(Node node, int start, int end, String replacement) {
+        if (node instanceof Leaf) {
+            String text = ((Leaf) node).text;
+            return build(text.substring(0, start) + replacement + text.substring(end));
+        }
+        Branch branch = (Branch) node;
+        int split = branch.left.length;
+        if (end <= split) {
+            return join(replace(branch.left, start, end, replacement), branch.right);
+        }
+        if (start >= split) {
+            return join(branch.left, replace(branch.right, start - split, end - split, replacement));
+        }
+        return join(join(prefix(branch.left, start), build(replacement)), suffix(branch.right, end - split));
+    }
+
+    private static Node build(String text) {
+        return build(text, 0, text.length());
+    }
+
+    private static Node build(String text, int start, int end) {
+        if (end - start <= PIECE) {
+            return start == end ? EMPTY : new Leaf(text.substring(start, end));
+        }
+        int middle = (start + end) >>> 1;
+        return new Branch(build(text, start, middle), build(text, middle, end));
+    }
+
+    // the first length chars of the node
+    private static Node prefix(Node node, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (length == node.length) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(((Leaf) node).text.substring(0, length));
+        }
+        Branch branch = (Branch) node;
+        if (length <= branch.left.length) {
+            return prefix(branch.left, length);
+        }
+        return join(branch.left, prefix(branch.right, length - branch.left.length));
+    }
+
+    // the chars of the node from start on
+    private static Node suffix(Node node, int start) {
+        if (start == 0) {
+            return node;
+        }
+        if (start == node.length) {
+            return EMPTY;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(((Leaf) node).text.substring(start));
+        }
+        Branch branch = (Branch) node;
+        if (start >= branch.left.length) {
+            return suffix(branch.right, start - branch.left.length);
+        }
+        return join(suffix(branch.left, start), branch.right);
+    }
+
+    // concatenates two balanced trees into one, going down the taller one
+    // to where the heights meet, as an AVL join does
+    private static Node join(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.length + right.length <= PIECE) {
+            return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+        }
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    // a branch over two balanced trees whose heights differ by up to two
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch middle = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, middle.left), new Branch(middle.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch middle = (Branch) branch.left;
+            return new Branch(new Branch(left, middle.left), new Branch(middle.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int height;
+
+        Node(int length, int height) {
+            this.length = length;
+            this.height = height;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final String text;
+
+        Leaf(String text) {
+            super(text.length(), 0);
+            this.text = text;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
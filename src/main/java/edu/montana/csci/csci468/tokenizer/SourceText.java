@@ -0,0 +1,319 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The characters the tokenizer reads from.  Besides plain strings a source
+// can pull characters from a Reader as the tokenizer reaches them, or read
+// them straight out of a memory mapped file, so large scripts never have to
+// be loaded into a single String.
+//
+// A Reader source holds what it read in chunks that are never copied as they
+// grow, and a mapped file holds only the window it is decoding on the heap.  Tokens cut their
+// values and the line content of error messages out of the source when asked,
+// so a Reader source keeps every chunk until a streaming parse lets go of the
+// ones before the statement it is on, see TokenList.releaseParsed().  See
+// heldChars().
+public abstract class SourceText implements CharSequence {
+
+    public static SourceText of(CharSequence chars) {
+        return new CharSequenceText(chars);
+    }
+
+    public static SourceText of(Reader reader) {
+        return new ReaderText(reader);
+    }
+
+    // the file is read as UTF-8, and a malformed one fails with an
+    // UncheckedIOException where the tokenizer reaches the bad bytes
+    public static SourceText map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedText(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // unlike length() this only reads as far as the given index
+    public boolean hasCharAt(int index) {
+        return index < length();
+    }
+
+    public String substring(int start, int end) {
+        return subSequence(start, end).toString();
+    }
+
+    // how many characters of the source this keeps on the heap
+    abstract long heldChars();
+
+    // lets go of the characters before index, as far as the source holds
+    // them in pieces that can be let go of.  Those before firstHeld() can't
+    // be read any more
+    void release(int index) {
+    }
+
+    int firstHeld() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    private static class CharSequenceText extends SourceText {
+        private final CharSequence chars;
+
+        CharSequenceText(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int length() {
+            return chars.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return chars.subSequence(start, end);
+        }
+
+        @Override
+        long heldChars() {
+            return chars.length();
+        }
+    }
+
+    // characters are kept in fixed size chunks as they are read, so the
+    // source is never copied as it grows
+    private static class ReaderText extends SourceText {
+        private static final int CHUNK_BITS = 13;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+        private final Reader reader;
+        private final List<char[]> chunks = new ArrayList<>();
+        // chunks before this one have been let go of
+        private int released = 0;
+        private int loaded = 0;
+        private boolean exhausted = false;
+
+        ReaderText(Reader reader) {
+            this.reader = reader;
+        }
+
+        private void loadThrough(int index) {
+            try {
+                while (index >= loaded && !exhausted) {
+                    int offset = loaded & (CHUNK_SIZE - 1);
+                    if (offset == 0) {
+                        chunks.add(new char[CHUNK_SIZE]);
+                    }
+                    int read = reader.read(chunks.get(chunks.size() - 1), offset, CHUNK_SIZE - offset);
+                    if (read < 0) {
+                        exhausted = true;
+                        reader.close();
+                    } else {
+                        loaded += read;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasCharAt(int index) {
+            loadThrough(index);
+            return index < loaded;
+        }
+
+        @Override
+        public int length() {
+            loadThrough(Integer.MAX_VALUE - 1);
+            return loaded;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (!hasCharAt(index)) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return chunks.get(index >>> CHUNK_BITS)[index & (CHUNK_SIZE - 1)];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return substring(start, end);
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            if (end > start) {
+                loadThrough(end - 1);
+            }
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; ) {
+                int offset = i & (CHUNK_SIZE - 1);
+                int count = Math.min(end - i, CHUNK_SIZE - offset);
+                sb.append(chunks.get(i >>> CHUNK_BITS), offset, count);
+                i += count;
+            }
+            return sb.toString();
+        }
+
+        @Override
+        long heldChars() {
+            return (long) (chunks.size() - released) * CHUNK_SIZE;
+        }
+
+        @Override
+        void release(int index) {
+            int before = Math.min(index >>> CHUNK_BITS, chunks.size());
+            for (; released < before; released++) {
+                chunks.set(released, null);
+            }
+        }
+
+        @Override
+        int firstHeld() {
+            return released << CHUNK_BITS;
+        }
+    }
+
+    // the file is decoded as UTF-8 a window at a time.  Where each window
+    // starts, in chars and in bytes, is kept as the file is first read
+    // through, so going back to an earlier window decodes it again from there
+    private static class MappedText extends SourceText {
+        private static final int WINDOW_SIZE = 8192;
+
+        private final MappedByteBuffer bytes;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private final CharBuffer window = CharBuffer.allocate(WINDOW_SIZE);
+        private int[] charStarts = new int[16];
+        private int[] byteStarts = new int[16];
+        private int windows = 1;
+        // the char the current window starts at, -1 before the first one
+        private int windowStart = -1;
+        // -1 until the last window has been decoded
+        private int length = -1;
+
+        MappedText(MappedByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        // decodes the window holding index, false past the end
+        private boolean decodeThrough(int index) {
+            if (windowStart >= 0 && index >= windowStart && index < windowStart + window.limit()) {
+                return true;
+            }
+            if (length >= 0 && index >= length) {
+                return false;
+            }
+            int found = Arrays.binarySearch(charStarts, 0, windows, index);
+            int next = found >= 0 ? found : -found - 2;
+            while (true) {
+                decode(next);
+                if (index < windowStart + window.limit()) {
+                    return true;
+                }
+                if (next == windows - 1) {
+                    return false;
+                }
+                next++;
+            }
+        }
+
+        // windows end where the decoder ran out of room, which is always
+        // between two characters
+        private void decode(int which) {
+            ByteBuffer in = bytes.duplicate().position(byteStarts[which]);
+            window.clear();
+            CoderResult result = decoder.reset().decode(in, window, true);
+            try {
+                if (result.isError()) {
+                    result.throwException();
+                }
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException(e);
+            }
+            window.flip();
+            windowStart = charStarts[which];
+            int end = windowStart + window.limit();
+            if (!in.hasRemaining()) {
+                length = end;
+            } else if (which == windows - 1) {
+                if (windows == charStarts.length) {
+                    charStarts = Arrays.copyOf(charStarts, windows * 2);
+                    byteStarts = Arrays.copyOf(byteStarts, windows * 2);
+                }
+                charStarts[windows] = end;
+                byteStarts[windows] = in.position();
+                windows++;
+            }
+        }
+
+        @Override
+        public boolean hasCharAt(int index) {
+            return decodeThrough(index);
+        }
+
+        @Override
+        public int length() {
+            decodeThrough(Integer.MAX_VALUE - 1);
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || !decodeThrough(index)) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return window.get(index - windowStart);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return substring(start, end);
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; ) {
+                if (i < 0 || !decodeThrough(i)) {
+                    throw new IndexOutOfBoundsException(i);
+                }
+                int from = i - windowStart;
+                int count = Math.min(end - i, window.limit() - from);
+                sb.append(window, from, from + count);
+                i += count;
+            }
+            return sb.toString();
+        }
+
+        @Override
+        long heldChars() {
+            return window.capacity();
+        }
+    }
+}
@@ -7,10 +7,18 @@ public class Token {
     int line;
     int lineOffset;
     String stringValue;
+    private String lineContent;
     TokenType type;
     private final CatScriptTokenizer tokenizer;
+    // when set, start, end and line are relative to the origin
+    private final TokenOrigin origin;
 
     public Token(int start, int end, int line, int lineOffset, String stringValue, TokenType type, CatScriptTokenizer tokenizer) {
+        this(start, end, line, lineOffset, stringValue, type, tokenizer, null);
+    }
+
+    Token(int start, int end, int line, int lineOffset, String stringValue, TokenType type,
+          CatScriptTokenizer tokenizer, TokenOrigin origin) {
         this.start = start;
         this.end = end;
         this.line = line;
@@ -18,25 +26,35 @@ public class Token {
         this.stringValue = stringValue;
         this.type = type;
         this.tokenizer = tokenizer;
+        this.origin = origin;
+    }
+
+    private CatScriptTokenizer getTokenizer() {
+        return origin == null ? tokenizer : origin.getTokenizer();
     }
 
     public int getStart() {
-        return start;
+        return origin == null ? start : origin.getOffset() + start;
     }
 
     public int getEnd() {
-        return end;
+        return origin == null ? end : origin.getOffset() + end;
     }
 
     public int getLine() {
-        return line;
+        return origin == null ? line : origin.getLine() + line;
     }
 
     public int getLineOffset() {
-        return lineOffset;
+        return origin == null || line != 0 ? lineOffset : lineOffset + origin.getColumnDelta();
     }
 
+    // tokens created by TokenList only carry a value when it does not appear
+    // in the source, everything else is cut out of the source on first use
     public String getStringValue() {
+        if (stringValue == null && getTokenizer() != null) {
+            stringValue = getTokenizer().valueOf(type, getStart(), getEnd());
+        }
         return stringValue;
     }
 
@@ -46,17 +64,26 @@ public class Token {
 
     @Override
     public String toString() {
-        return "Token(\"" + stringValue + "\"){" +
+        return "Token(\"" + getStringValue() + "\"){" +
                 "type=" + type +
-                ", start=" + start +
-                ", end=" + end +
-                ", line=" + line +
-                ", offset=" + lineOffset +
+                ", start=" + getStart() +
+                ", end=" + getEnd() +
+                ", line=" + getLine() +
+                ", offset=" + getLineOffset() +
                 '}';
     }
 
+    // kept once asked for, unless the token moves with an origin.  A
+    // streaming parse asks for the lines of its syntax errors before it lets
+    // go of them, for any other token it is null once the parse is past it
     public String getLineContent() {
-        String[] lines = tokenizer.src.split("\n", -1);
-        return lines[line - 1];
+        if (lineContent != null) {
+            return lineContent;
+        }
+        String content = getTokenizer().lineContent(getStart(), getLine());
+        if (origin == null) {
+            lineContent = content;
+        }
+        return content;
     }
 }
@@ -1,35 +1,188 @@
 package edu.montana.csci.csci468.tokenizer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.EOF;
+import static edu.montana.csci.csci468.tokenizer.TokenType.ERROR;
 import static edu.montana.csci.csci468.tokenizer.TokenType.IDENTIFIER;
 
 public class TokenList implements Iterable<Token> {
 
+    // tokens are stored as parallel primitive arrays rather than one Token
+    // object each, Token objects and their string values are only created
+    // when the parser asks for them.  Only synthetic values (EOF and error
+    // messages) that don't appear in the source are stored as strings.
+    // Indexes count from the first token of the source, the arrays start at
+    // base once a streaming parse has let go of the tokens before it.
+    private static final TokenType[] TYPES = TokenType.values();
+
     private final CatScriptTokenizer tokenizer;
-    List<Token> tokens = new ArrayList<>();
+    private byte[] types = new byte[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int[] lines = new int[64];
+    private int[] lineOffsets = new int[64];
+    private final Map<Integer, String> syntheticValues = new HashMap<>();
+    private int size = 0;
+    private int base = 0;
+    private TokenOrigin origin;
+    // the tokens handed out since the last releaseParsed(), while releasing
+    private List<Token> handedOut;
     int currentToken = 0;
 
     public TokenList(CatScriptTokenizer tokenizer) {
         this.tokenizer = tokenizer;
     }
 
-    void addToken(TokenType eof, String stringValue, int start, int end, int line, int lineOffset) {
-        tokens.add(new Token(start, end, line, lineOffset - (end - start), stringValue, eof, tokenizer));
+    void addToken(TokenType type, String stringValue, int start, int end, int line, int lineOffset) {
+        ensureCapacity(size + 1);
+        int at = size - base;
+        types[at] = (byte) type.ordinal();
+        starts[at] = start;
+        ends[at] = end;
+        lines[at] = line;
+        lineOffsets[at] = lineOffset - (end - start);
+        if (type == EOF || type == ERROR) {
+            syntheticValues.put(size, stringValue);
+        }
+        size++;
+    }
+
+    // the number of tokens scanned so far, which for a streaming tokenizer
+    // may not be all of them yet
+    int scannedTokens() {
+        return size;
+    }
+
+    // every scanned token is kept until a streaming parse lets go of it, at
+    // 17 bytes each plus up to as much again of spare capacity
+    int capacity() {
+        return types.length;
+    }
+
+    // copies tokens [from, to) of another list over the same source, moving
+    // them lineDelta lines down
+    void append(TokenList other, int from, int to, int lineDelta) {
+        int count = to - from;
+        ensureCapacity(size + count);
+        int at = size - base;
+        int otherAt = from - other.base;
+        System.arraycopy(other.types, otherAt, types, at, count);
+        System.arraycopy(other.starts, otherAt, starts, at, count);
+        System.arraycopy(other.ends, otherAt, ends, at, count);
+        System.arraycopy(other.lineOffsets, otherAt, lineOffsets, at, count);
+        for (int i = 0; i < count; i++) {
+            lines[at + i] = other.lines[otherAt + i] + lineDelta;
+        }
+        for (Map.Entry<Integer, String> synthetic : other.syntheticValues.entrySet()) {
+            if (synthetic.getKey() >= from && synthetic.getKey() < to) {
+                syntheticValues.put(synthetic.getKey() - from + size, synthetic.getValue());
+            }
+        }
+        size += count;
+    }
+
+    private void ensureCapacity(int needed) {
+        needed -= base;
+        if (needed > types.length) {
+            int capacity = Math.max(needed, types.length * 2);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            lineOffsets = Arrays.copyOf(lineOffsets, capacity);
+        }
+    }
+
+    private void scanThrough(int index) {
+        while (index >= size && tokenizer.scanNextToken()) {
+        }
+    }
+
+    // reading past EOF fails like it did when tokens were kept in a list, and
+    // so does reading a token that has been let go of
+    private int checkIndex(int index) {
+        scanThrough(index);
+        return Objects.checkIndex(index - base, size - base);
+    }
+
+    public int size() {
+        scanThrough(Integer.MAX_VALUE);
+        return size;
+    }
+
+    public Token get(int index) {
+        int at = checkIndex(index);
+        if (origin != null) {
+            int offset = origin.getOffset();
+            return new Token(starts[at] - offset, ends[at] - offset, lines[at] - origin.getLine(),
+                    lineOffsets[at], syntheticValues.get(index), TYPES[types[at]], tokenizer, origin);
+        }
+        Token token = new Token(starts[at], ends[at], lines[at], lineOffsets[at],
+                syntheticValues.get(index), TYPES[types[at]], tokenizer);
+        if (handedOut != null) {
+            handedOut.add(token);
+        }
+        return token;
+    }
+
+    // from now on the tokens handed out are kept track of, so that
+    // releaseParsed() can let go of the source under them
+    public void startReleasing() {
+        handedOut = new ArrayList<>();
+        tokenizer.releasing = true;
+    }
+
+    // lets go of every token before the last one consumed, once the parser
+    // has built what it needed them for.  The tokens handed out for them
+    // take their values with them, and the source lets go of the characters
+    // before the line the first kept token is on
+    public void releaseParsed() {
+        for (Token token : handedOut) {
+            token.getStringValue();
+        }
+        handedOut.clear();
+        int cut = Math.max(base, currentToken - 1);
+        int from = cut - base;
+        int count = size - cut;
+        System.arraycopy(types, from, types, 0, count);
+        System.arraycopy(starts, from, starts, 0, count);
+        System.arraycopy(ends, from, ends, 0, count);
+        System.arraycopy(lines, from, lines, 0, count);
+        System.arraycopy(lineOffsets, from, lineOffsets, 0, count);
+        base = cut;
+        syntheticValues.keySet().removeIf(index -> index < cut);
+        if (count > 0) {
+            int lineStart = tokenizer.lineStart(starts[0]);
+            if (lineStart > 0) {
+                // the '\n' before the line stays, it shows where the line starts
+                tokenizer.src.release(lineStart - 1);
+            }
+        }
+    }
+
+    // tokens handed out from now on are relative to the given origin, which
+    // must be at a position of this list's source
+    public void setOrigin(TokenOrigin origin) {
+        this.origin = origin;
     }
 
     public Token getCurrentToken() {
-        return tokens.get(currentToken);
+        return get(currentToken);
     }
 
     public Token consumeToken() {
-        return tokens.get(currentToken++);
+        return get(currentToken++);
     }
 
     public boolean matchAndConsume(TokenType... type) {
@@ -42,17 +195,39 @@ public class TokenList implements Iterable<Token> {
     }
 
     public boolean match(String identifier) {
-        if (getCurrentToken().getType().equals(IDENTIFIER) &&
-            getCurrentToken().getStringValue().equals(identifier)) {
-            return true;
-        } else {
+        int at = checkIndex(currentToken);
+        if (TYPES[types[at]] != IDENTIFIER || ends[at] - starts[at] != identifier.length()) {
             return false;
         }
+        for (int i = 0; i < identifier.length(); i++) {
+            if (tokenizer.src.charAt(starts[at] + i) != identifier.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean match(TokenType... type) {
+        int at = checkIndex(currentToken);
+        TokenType currentType = TYPES[types[at]];
+        for (TokenType tokenType : type) {
+            if (currentType == tokenType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // matches the token distance tokens after the current one, nothing
+    // matches past EOF
+    public boolean matchAhead(int distance, TokenType... type) {
+        int index = currentToken + distance;
+        scanThrough(index);
+        if (index >= size) {
+            return false;
+        }
         for (TokenType tokenType : type) {
-            if (getCurrentToken().getType().equals(tokenType)) {
+            if (TYPES[types[index - base]] == tokenType) {
                 return true;
             }
         }
@@ -60,41 +235,45 @@ public class TokenList implements Iterable<Token> {
     }
 
     public void reset() {
+        if (base > 0) {
+            throw new IllegalStateException("the first tokens have been let go of");
+        }
         currentToken = 0;
     }
 
     public boolean hasMoreTokens() {
-        return currentToken < tokens.size() - 1;
+        scanThrough(currentToken + 1);
+        return currentToken < size - 1;
     }
 
     public Token lastToken() {
-        return tokens.get(Math.max(0, currentToken - 1));
+        return get(Math.max(0, currentToken - 1));
     }
 
     public Stream<Token> stream() {
-        return tokens.stream();
+        return IntStream.range(base, size()).mapToObj(this::get);
     }
 
     @Override
     public Iterator<Token> iterator() {
-        return tokens.iterator();
+        return stream().iterator();
     }
 
     @Override
     public void forEach(Consumer action) {
-        tokens.forEach(action);
+        stream().forEach(action);
     }
 
     @Override
     public Spliterator<Token> spliterator() {
-        return tokens.spliterator();
+        return stream().spliterator();
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
+        for (int i = base; i < size(); i++) {
+            Token token = get(i);
             if (i == currentToken) {
                 sb.append("-->[");
             }
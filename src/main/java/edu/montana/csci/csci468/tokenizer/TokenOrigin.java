@@ -0,0 +1,59 @@
+package edu.montana.csci.csci468.tokenizer;
+
+// A movable position that tokens can be created relative to (see
+// TokenList.setOrigin).  Moving the origin into a new version of the source
+// moves all of its tokens with it, which lets an incremental parse keep
+// statements that come after an edit without touching their tokens.  Tokens
+// read the position through getOffset() and getLine() when asked for theirs,
+// so a subclass can work it out rather than have it moved, see Document.
+public class TokenOrigin {
+
+    // origins made from a root share its tokenizer, so pointing all of them
+    // at a new version of the source is a single setTokenizer
+    private final TokenOrigin root;
+    private CatScriptTokenizer tokenizer;
+    private int offset;
+    private int line;
+    // applies to tokens on the first line of the origin only, later lines
+    // don't move sideways when text before the origin changes
+    private int columnDelta;
+
+    // a root origin at the start of the source
+    public TokenOrigin(CatScriptTokenizer tokenizer) {
+        this.root = null;
+        this.tokenizer = tokenizer;
+        this.line = 1;
+    }
+
+    public TokenOrigin(TokenOrigin root, int offset, int line) {
+        this.root = root;
+        this.offset = offset;
+        this.line = line;
+    }
+
+    public CatScriptTokenizer getTokenizer() {
+        return root == null ? tokenizer : root.getTokenizer();
+    }
+
+    public void setTokenizer(CatScriptTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumnDelta() {
+        return columnDelta;
+    }
+
+    public void move(int offsetDelta, int lineDelta, int columnDelta) {
+        this.offset += offsetDelta;
+        this.line += lineDelta;
+        this.columnDelta += columnDelta;
+    }
+}
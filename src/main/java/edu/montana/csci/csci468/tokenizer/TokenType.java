@@ -40,5 +40,53 @@ public enum TokenType {
         KEYWORDS.put("var", VAR);
     }
 
+    // the keyword spelled by src[start, end), or IDENTIFIER, without
+    // allocating a string for it
+    public static TokenType keyword(CharSequence src, int start, int end) {
+        switch (end - start) {
+            case 2:
+                if (src.charAt(start) == 'i') {
+                    char c = src.charAt(start + 1);
+                    return c == 'f' ? IF : c == 'n' ? IN : IDENTIFIER;
+                }
+                return IDENTIFIER;
+            case 3:
+                switch (src.charAt(start)) {
+                    case 'f': return matches(src, start, "for") ? FOR : IDENTIFIER;
+                    case 'n': return matches(src, start, "not") ? NOT : IDENTIFIER;
+                    case 'v': return matches(src, start, "var") ? VAR : IDENTIFIER;
+                    default: return IDENTIFIER;
+                }
+            case 4:
+                switch (src.charAt(start)) {
+                    case 'e': return matches(src, start, "else") ? ELSE : IDENTIFIER;
+                    case 'n': return matches(src, start, "null") ? NULL : IDENTIFIER;
+                    case 't': return matches(src, start, "true") ? TRUE : IDENTIFIER;
+                    default: return IDENTIFIER;
+                }
+            case 5:
+                switch (src.charAt(start)) {
+                    case 'f': return matches(src, start, "false") ? FALSE : IDENTIFIER;
+                    case 'p': return matches(src, start, "print") ? PRINT : IDENTIFIER;
+                    default: return IDENTIFIER;
+                }
+            case 6:
+                return matches(src, start, "return") ? RETURN : IDENTIFIER;
+            case 8:
+                return matches(src, start, "function") ? FUNCTION : IDENTIFIER;
+            default:
+                return IDENTIFIER;
+        }
+    }
+
+    private static boolean matches(CharSequence src, int start, String keyword) {
+        for (int i = 1; i < keyword.length(); i++) {
+            if (src.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return src.charAt(start) == keyword.charAt(0);
+    }
+
 
 }
@@ -1,14 +1,18 @@
 package edu.montana.csci.csci468;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.closure.ClosureCompiler;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
 import edu.montana.csci.csci468.js.JSTranspiler;
 import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.ErrorType;
+import edu.montana.csci.csci468.parser.ParseElement;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.ParseErrorException;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import edu.montana.csci.csci468.parser.statements.Statement;
 import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
 import edu.montana.csci.csci468.tokenizer.Token;
@@ -21,6 +25,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class CatscriptTestBase {
 
@@ -100,8 +105,7 @@ public class CatscriptTestBase {
         final CatScriptParser parser = new CatScriptParser();
         final CatScriptProgram program = parser.parse(src);
         program.verify();
-        program.execute();
-        return program.getOutput();
+        return program.run();
     }
 
     protected String transpile(String src) {
@@ -114,13 +118,28 @@ public class CatscriptTestBase {
     }
 
     protected String compile(String src) {
+        return compile(src, new CompilerOptions());
+    }
+
+    protected String compile(String src, CompilerOptions options) {
         final CatScriptParser parser = new CatScriptParser();
         final CatScriptProgram program = parser.parse(src);
         program.verify();
-        ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
+        // tests always check the generated class fully, on a copy so the
+        // caller's options stay as they were
+        CompilerOptions checked = options.copy();
+        checked.setVerification(CompilerOptions.Verification.DATA_FLOW);
+        ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program, checked);
         CatScriptProgram catScriptProgram = byteCodeGenerator.compileToBytecode();
-        catScriptProgram.execute();
-        return catScriptProgram.getOutput();
+        return catScriptProgram.run();
+    }
+
+    protected String executeClosures(String src) {
+        final CatScriptParser parser = new CatScriptParser();
+        final CatScriptProgram program = parser.parse(src);
+        program.verify();
+        CatScriptProgram closureProgram = new ClosureCompiler(program).compileToClosures();
+        return closureProgram.run();
     }
 
     protected List<ParseError> getErrors(String src) {
@@ -134,4 +153,41 @@ public class CatscriptTestBase {
         }
     }
 
+    // one line per node with its tokens, resolved type, frame size and
+    // errors, for comparing trees that were built in different ways
+    protected String describe(ParseElement element) {
+        return describe(element, true);
+    }
+
+    // unverified trees have no types to show
+    protected String describe(ParseElement element, boolean verified) {
+        StringBuilder sb = new StringBuilder();
+        describe(element, verified, "", sb);
+        return sb.toString();
+    }
+
+    private void describe(ParseElement element, boolean verified, String indent, StringBuilder sb) {
+        sb.append(indent).append(element).append(' ')
+                .append(describe(element.getStart())).append(' ')
+                .append(describe(element.getEnd()));
+        if (verified && element instanceof Expression) {
+            sb.append(" : ").append(((Expression) element).getType());
+        }
+        if (element instanceof FunctionDefinitionStatement) {
+            sb.append(" frame ").append(((FunctionDefinitionStatement) element).getFrameSize());
+        }
+        sb.append('\n');
+        for (ParseError error : element.getErrors()) {
+            sb.append(indent).append("! ").append(error.getFullMessage()).append('\n');
+        }
+        for (ParseElement child : element.getChildren()) {
+            assertSame(element, child.getParent());
+            describe(child, verified, indent + "  ", sb);
+        }
+    }
+
+    private String describe(Token token) {
+        return token == null ? "null" : token + token.getLineContent();
+    }
+
 }
@@ -0,0 +1,95 @@
+package edu.montana.csci.csci468;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import spark.Spark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptDispatcherTest {
+
+    static String base;
+    static final CountDownLatch started = new CountDownLatch(1);
+    static final CountDownLatch finish = new CountDownLatch(1);
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        base = "http://localhost:" + port;
+        Spark.port(port);
+
+        // one script at a time, which waits until it is let go
+        ScriptDispatcher oneAtATime = new ScriptDispatcher(Executors.newCachedThreadPool(), null, null, 1);
+        Spark.get("/held", (req, resp) -> oneAtATime.script(req, resp, response -> {
+            started.countDown();
+            finish.await();
+            response.write("done".getBytes(StandardCharsets.UTF_8));
+        }));
+
+        // every hand over fails
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        ScriptDispatcher rejecting = new ScriptDispatcher(shutDown, null, null, 1);
+        Spark.get("/rejected", (req, resp) -> rejecting.script(req, resp, response -> {}));
+        Spark.awaitInitialization();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        Spark.stop();
+        Spark.awaitStop();
+    }
+
+    @Test
+    void scriptsPastTheLimitAreTurnedAway() throws Exception {
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> body(base + "/held"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        HttpURLConnection second = (HttpURLConnection) new URL(base + "/held").openConnection();
+        assertEquals(503, second.getResponseCode());
+        assertEquals("1", second.getHeaderField("Retry-After"));
+
+        finish.countDown();
+        assertEquals("done", first.get(10, TimeUnit.SECONDS));
+        // the permit came back when the first script finished
+        assertEquals("done", body(base + "/held"));
+    }
+
+    @Test
+    void aScriptThatCannotBeHandedOverGivesItsPermitBack() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(base + "/rejected").openConnection();
+            // the hand over failed before anything was committed, and a
+            // permit kept by a failed request would turn the next one away
+            assertEquals(500, connection.getResponseCode());
+        }
+    }
+
+    private static String body(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            try (InputStream in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
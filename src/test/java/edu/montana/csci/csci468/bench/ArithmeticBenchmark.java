@@ -0,0 +1,54 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.lang.management.ManagementFactory;
+
+// Measures interpreter throughput and heap allocation on an arithmetic heavy
+// script.  Run with the main method; allocation is read from the JVM's per
+// thread allocation counter.
+public class ArithmeticBenchmark {
+
+    static final String SOURCE = source();
+
+    static String source() {
+        StringBuilder list = new StringBuilder("[");
+        for (int i = 1; i <= 200; i++) {
+            list.append(i == 1 ? "" : ", ").append(i);
+        }
+        list.append("]");
+        return "var count = 0\n" +
+                "for (i in " + list + ") {\n" +
+                "  for (j in " + list + ") {\n" +
+                "    if ((i * 1000 + j * 7 - (i - j) * 3) / (j + 1) > -(i * 2 + 400) * 3 - 1000) {\n" +
+                "      if (not (i * j - i * 3 + 4 * j <= 100)) {\n" +
+                "        count = count + 1\n" +
+                "      }\n" +
+                "    }\n" +
+                "  }\n" +
+                "}\n" +
+                "print(count)\n";
+    }
+
+    public static void main(String[] args) {
+        CatScriptProgram program = new CatScriptParser().parse(SOURCE);
+        program.verify();
+
+        for (int i = 0; i < 20; i++) {
+            program.run();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int runs = 50;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            program.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%,.2f ms/run, %,d bytes allocated/run%n", elapsed / 1_000_000.0 / runs, allocated / runs);
+    }
+}
@@ -0,0 +1,53 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParsedProgramCache;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// Time to get a verified program for sources of growing size: tokenize,
+// parse and verify, against loading it from a warm ParsedProgramCache
+// entry (a mapped file read back through AstReader).
+public class AstCacheBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("catscript-ast");
+        ParsedProgramCache cache = new ParsedProgramCache(directory);
+        for (int lines : new int[]{500, 5_000, 50_000}) {
+            String source = IncrementalParseBenchmark.source(lines);
+            cache.getProgram(source);
+
+            int runs = Math.max(5, 500_000 / lines);
+            double parseMicros = Double.MAX_VALUE;
+            double loadMicros = Double.MAX_VALUE;
+            // best of five rounds, each one the mean of the runs
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    CatScriptProgram program = new CatScriptParser().parse(source);
+                    program.verify();
+                }
+                parseMicros = Math.min(parseMicros, (System.nanoTime() - start) / 1000.0 / runs);
+
+                start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    cache.getProgram(source);
+                }
+                loadMicros = Math.min(loadMicros, (System.nanoTime() - start) / 1000.0 / runs);
+            }
+            System.out.printf("%,7d lines: parse + verify %,10.0f us, cache load %,10.0f us (%.1fx), entry %,d bytes%n",
+                    lines, parseMicros, loadMicros, parseMicros / loadMicros, largestEntry(directory));
+        }
+    }
+
+    // sources only grow, so the largest entry is the one just written
+    private static long largestEntry(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).max().orElse(0);
+        }
+    }
+}
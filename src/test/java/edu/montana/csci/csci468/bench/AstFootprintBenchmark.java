@@ -0,0 +1,70 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+// Heap used by the parse tree of a large program, from class histograms
+// taken (after a full GC) before and after parsing while the tree is kept
+// alive.  The tree's tokens are counted in, the source string and the
+// tokenizer's token arrays are reported apart.
+public class AstFootprintBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String source = IncrementalParseBenchmark.source(50_000);
+        // warm up so the histograms don't pick up class loading
+        new CatScriptParser().parse(source);
+
+        Map<String, long[]> before = histogram();
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        Map<String, long[]> after = histogram();
+
+        int nodes = countNodes(program);
+        long total = 0;
+        Map<String, Long> bytes = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : after.entrySet()) {
+            long[] old = before.getOrDefault(entry.getKey(), new long[2]);
+            long delta = entry.getValue()[1] - old[1];
+            if (delta > 0) {
+                bytes.put(entry.getKey(), delta);
+                total += delta;
+            }
+        }
+        System.out.printf("%,d nodes, %,d bytes retained, %.1f bytes per node%n", nodes, total, (double) total / nodes);
+        bytes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(15)
+                .forEach(entry -> System.out.printf("  %-60s %6.1f bytes per node%n",
+                        entry.getKey(), (double) entry.getValue() / nodes));
+        // keeps the tree reachable until after the second histogram
+        System.out.println(program.getStatements().size() + " statements");
+    }
+
+    private static int countNodes(ParseElement element) {
+        int count = 1;
+        for (ParseElement child : element.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    // class name -> {instances, bytes}, the histogram forces a full GC first
+    private static Map<String, long[]> histogram() throws Exception {
+        String output = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[]{new String[0]}, new String[]{String[].class.getName()});
+        Map<String, long[]> histogram = new HashMap<>();
+        for (String line : output.split("\n")) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length >= 4 && columns[0].endsWith(":")) {
+                histogram.put(columns[3], new long[]{Long.parseLong(columns[1]), Long.parseLong(columns[2])});
+            }
+        }
+        return histogram;
+    }
+}
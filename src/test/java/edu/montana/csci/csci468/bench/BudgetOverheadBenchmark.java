@@ -0,0 +1,100 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ExecutionBudget;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+// Cost of the budget checks on a loop-heavy and a call-heavy script, with no
+// budget set and with every limit set but never reached.  The interpreter
+// counts either way.  Compiled code is measured unmetered, which is what the
+// compiler emitted before budgets existed, and metered, with and without a
+// budget.  Unmetered code should run as fast as the same sources do on a
+// build from before budgets, which is checked by running this there.
+public class BudgetOverheadBenchmark {
+
+    static final String LOOPS;
+
+    static {
+        StringBuilder list = new StringBuilder("[0");
+        for (int i = 1; i < 300; i++) {
+            list.append(", ").append(i);
+        }
+        list.append("]");
+        LOOPS = "var total = 0\n" +
+                "for (i in " + list + ") {\n" +
+                "  for (j in " + list + ") {\n" +
+                "    total = total + i - j\n" +
+                "  }\n" +
+                "}\n" +
+                "print(total)\n";
+    }
+
+    static final String CALLS = "function fib(n : int) : int {\n" +
+            "  if (n < 2) {\n" +
+            "    return n\n" +
+            "  }\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "}\n" +
+            "print(fib(22))\n";
+
+    public static void main(String[] args) {
+        ExecutionBudget generous = ExecutionBudget.untrusted();
+        generous.setMaxWallTimeMillis(60_000);
+        for (String source : new String[]{LOOPS, CALLS}) {
+            String name = source == LOOPS ? "loops (90k iterations)" : "calls (fib(22), 57k calls)";
+            CatScriptProgram program = new CatScriptParser().parse(source);
+            program.verify();
+            CatScriptProgram unmetered = ByteCodeGenerator.newInstance(new ByteCodeGenerator(program).compileToClass());
+            CatScriptProgram metered = ByteCodeGenerator.newInstance(
+                    new ByteCodeGenerator(program, CompilerOptions.metered()).compileToClass());
+
+            double interpreted = Double.MAX_VALUE;
+            double interpretedBudget = Double.MAX_VALUE;
+            double bytecode = Double.MAX_VALUE;
+            double bytecodeMetered = Double.MAX_VALUE;
+            double bytecodeBudget = Double.MAX_VALUE;
+            for (int round = 0; round < 15; round++) {
+                interpreted = Math.min(interpreted, interpret(program, null));
+                interpretedBudget = Math.min(interpretedBudget, interpret(program, generous));
+                bytecode = Math.min(bytecode, compiled(unmetered, null));
+                bytecodeMetered = Math.min(bytecodeMetered, compiled(metered, null));
+                bytecodeBudget = Math.min(bytecodeBudget, compiled(metered, generous));
+            }
+            System.out.printf("%-28s interpreter %7.3f ms, with budget %7.3f ms (%+.1f%%)%n",
+                    name, interpreted, interpretedBudget, 100 * (interpretedBudget / interpreted - 1));
+            System.out.printf("%-28s bytecode    %7.3f ms, metered %7.3f ms (%+.1f%%), with budget %7.3f ms (%+.1f%%)%n",
+                    "", bytecode, bytecodeMetered, 100 * (bytecodeMetered / bytecode - 1),
+                    bytecodeBudget, 100 * (bytecodeBudget / bytecode - 1));
+        }
+    }
+
+    // mean of a batch of runs, in milliseconds
+    private static double interpret(CatScriptProgram program, ExecutionBudget budget) {
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+            if (budget != null) {
+                runtime.setBudget(budget);
+            }
+            program.execute(runtime);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+
+    private static double compiled(CatScriptProgram program, ExecutionBudget budget) {
+        int runs = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            CatscriptRuntime runtime = new CatscriptRuntime();
+            if (budget != null) {
+                runtime.setBudget(budget);
+            }
+            program.execute(runtime);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+}
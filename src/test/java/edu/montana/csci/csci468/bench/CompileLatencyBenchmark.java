@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// Measures bytecode compile latency with each compiler option on and off.
+// The debug dump is written to a discarded stream so only the cost of
+// producing it is measured.
+public class CompileLatencyBenchmark {
+
+    static final String SOURCE = "function fib(n : int) : int {\n" +
+            "  if (n < 2) {\n" +
+            "    return n\n" +
+            "  }\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "}\n" +
+            "function sum(xs : list<int>) : int {\n" +
+            "  var total = 0\n" +
+            "  for (x in xs) {\n" +
+            "    total = total + x\n" +
+            "  }\n" +
+            "  return total\n" +
+            "}\n" +
+            "var x = 10\n" +
+            "if (x > 5) {\n" +
+            "  print(fib(x) + sum([1, 2, 3]))\n" +
+            "} else {\n" +
+            "  print(\"small\")\n" +
+            "}\n";
+
+    public static void main(String[] args) {
+        CatScriptProgram program = new CatScriptParser().parse(SOURCE);
+        program.verify();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            report(out, "production", program, new CompilerOptions());
+            report(out, "structure check", program, options(false, CompilerOptions.Verification.STRUCTURE));
+            report(out, "data flow check", program, options(false, CompilerOptions.Verification.DATA_FLOW));
+            report(out, "debug dump", program, options(true, CompilerOptions.Verification.NONE));
+            report(out, "debug (dump + data flow)", program, CompilerOptions.debug());
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static CompilerOptions options(boolean debugDump, CompilerOptions.Verification verification) {
+        CompilerOptions options = new CompilerOptions();
+        options.setDebugDump(debugDump);
+        options.setVerification(verification);
+        return options;
+    }
+
+    private static void report(PrintStream out, String name, CatScriptProgram program, CompilerOptions options) {
+        for (int i = 0; i < 2_000; i++) {
+            new ByteCodeGenerator(program, options).compileToClass();
+        }
+        int runs = 5_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new ByteCodeGenerator(program, options).compileToClass();
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / runs;
+        out.printf("%-26s %8.1f us/compile%n", name, micros);
+    }
+}
@@ -0,0 +1,38 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseError;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+// Renders the messages of 10k verification errors spread over a large
+// source, which used to re-split the whole source for every error.
+public class ErrorRenderingBenchmark {
+
+    public static void main(String[] args) {
+        int errors = 10_000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < errors; i++) {
+            for (int j = 0; j < 10; j++) {
+                sb.append("var x").append(i).append("_").append(j).append(" = ").append(j).append(" * 2 + 1\n");
+            }
+            sb.append("print(missing").append(i).append(")\n");
+        }
+        String source = sb.toString();
+
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        try {
+            program.verify();
+            throw new IllegalStateException("expected errors");
+        } catch (ParseErrorException e) {
+            long start = System.nanoTime();
+            long chars = 0;
+            for (ParseError error : e.getErrors()) {
+                chars += error.getFullMessage().length();
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.printf("%,d errors on a %,d KB source rendered in %.1f ms (%,d chars)%n",
+                    e.getErrors().size(), source.length() / 1024, millis, chars);
+        }
+    }
+}
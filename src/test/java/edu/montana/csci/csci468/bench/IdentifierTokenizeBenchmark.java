@@ -0,0 +1,54 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+
+// Tokens per second on an identifier dense corpus, both for tokenizing
+// alone and for tokenizing and reading every token's value the way the
+// parser does.
+public class IdentifierTokenizeBenchmark {
+
+    static final String[] NAMES = {"alpha", "beta", "gamma", "delta", "epsilon", "index", "count", "total",
+            "values", "result", "format", "variable", "printer", "returned", "iffy", "nullable"};
+
+    public static void main(String[] args) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 8 * 1024 * 1024; i++) {
+            sb.append("var ").append(NAMES[i % NAMES.length]).append(i % 100).append(" = ")
+                    .append(NAMES[(i * 7) % NAMES.length]).append(" + ")
+                    .append(NAMES[(i * 3) % NAMES.length]).append("(").append(NAMES[i % 5]).append(")\n")
+                    .append("if (").append(NAMES[(i * 5) % NAMES.length]).append(" == null) { return true }\n");
+        }
+        String source = sb.toString();
+
+        int tokens = new CatScriptTokenizer(source).getTokens().size();
+        for (int i = 0; i < 3; i++) {
+            tokenizeAndRead(source);
+        }
+        int runs = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new CatScriptTokenizer(source);
+        }
+        double tokenizeSeconds = (System.nanoTime() - start) / 1_000_000_000.0 / runs;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            tokenizeAndRead(source);
+        }
+        double readSeconds = (System.nanoTime() - start) / 1_000_000_000.0 / runs;
+
+        System.out.printf("%,d tokens%n", tokens);
+        System.out.printf("tokenize:            %,.0f tokens/second%n", tokens / tokenizeSeconds);
+        System.out.printf("tokenize and values: %,.0f tokens/second%n", tokens / readSeconds);
+    }
+
+    private static long tokenizeAndRead(String source) {
+        TokenList tokens = new CatScriptTokenizer(source).getTokens();
+        long length = 0;
+        for (Token token : tokens) {
+            length += token.getStringValue().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.Document;
+
+// Latency of a single keystroke through Document.edit, typing into the
+// start, middle and end of sources of growing size, next to a full parse
+// of the same source.
+public class IncrementalParseBenchmark {
+
+    public static void main(String[] args) {
+        for (int lines : new int[]{5_000, 20_000, 50_000}) {
+            String source = source(lines);
+            Document document = Document.parse(source);
+            long start = System.nanoTime();
+            int runs = 5;
+            for (int i = 0; i < runs; i++) {
+                new CatScriptParser().parse(source);
+            }
+            double fullMicros = (System.nanoTime() - start) / 1000.0 / runs;
+
+            System.out.printf("%,d lines, full parse %,.0f us%n", lines, fullMicros);
+            for (String where : new String[]{"start", "middle", "end"}) {
+                int line = where.equals("start") ? 1 : where.equals("middle") ? 1 + 5 * (lines / 10) : lines - 4;
+                int offset = offsetOf(document.getSource(), line) + "var v".length();
+                // warm up, then type and delete a character many times
+                for (int i = 0; i < 2000; i++) {
+                    document = document.edit(offset, offset, "x").edit(offset, offset + 1, "");
+                }
+                int keystrokes = 20_000;
+                start = System.nanoTime();
+                for (int i = 0; i < keystrokes / 2; i++) {
+                    document = document.edit(offset, offset, "x").edit(offset, offset + 1, "");
+                }
+                double micros = (System.nanoTime() - start) / 1000.0 / keystrokes;
+                System.out.printf("  keystroke at %-6s %,8.1f us (%d statements reused)%n",
+                        where, micros, document.getReusedStatements());
+            }
+        }
+    }
+
+    static String source(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i += 5) {
+            sb.append("var v").append(i).append(" = ").append(i).append(" + 2 * ").append(i % 7).append("\n")
+                    .append("function f").append(i).append("(a : int) : int {\n")
+                    .append("  return a + v").append(i).append("\n")
+                    .append("}\n")
+                    .append("print(f").append(i).append("(v").append(i).append("))\n");
+        }
+        return sb.toString();
+    }
+
+    private static int offsetOf(String source, int line) {
+        int offset = 0;
+        for (int i = 1; i < line; i++) {
+            offset = source.indexOf('\n', offset) + 1;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,62 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+
+// Compiles and runs many distinct scripts through the bytecode backend and
+// reports metaspace usage along the way.  With a class loader per compiled
+// program the numbers should level off instead of growing with the count.
+//
+//   usage: MetaspaceSoak [scripts, default 100000]
+public class MetaspaceSoak {
+
+    public static void main(String[] args) {
+        int scripts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int reportEvery = Math.max(1, scripts / 10);
+        long firstReported = -1;
+        long lastReported = -1;
+        long loadedBefore = classLoading().getTotalLoadedClassCount();
+        long unloadedBefore = classLoading().getUnloadedClassCount();
+
+        for (int i = 1; i <= scripts; i++) {
+            CatScriptProgram program = new CatScriptParser().parse("var x = " + i + "\nprint(x + 1)");
+            program.verify();
+            CatScriptProgram compiled = new ByteCodeGenerator(program).compileToBytecode();
+            compiled.run();
+            if (i % reportEvery == 0) {
+                System.gc();
+                lastReported = metaspaceUsed();
+                if (firstReported < 0) {
+                    firstReported = lastReported;
+                }
+                System.out.printf("%,8d scripts: metaspace %,d KB, classes loaded %,d, unloaded %,d%n",
+                        i, lastReported / 1024, classLoading().getLoadedClassCount(),
+                        classLoading().getUnloadedClassCount());
+            }
+        }
+
+        System.out.printf("metaspace %,d KB at the first report, %,d KB at the last (%+,d KB)%n",
+                firstReported / 1024, lastReported / 1024, (lastReported - firstReported) / 1024);
+        System.out.printf("classes loaded %,d, unloaded %,d%n",
+                classLoading().getTotalLoadedClassCount() - loadedBefore,
+                classLoading().getUnloadedClassCount() - unloadedBefore);
+    }
+
+    private static ClassLoadingMXBean classLoading() {
+        return ManagementFactory.getClassLoadingMXBean();
+    }
+
+    private static long metaspaceUsed() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace")) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        return -1;
+    }
+}
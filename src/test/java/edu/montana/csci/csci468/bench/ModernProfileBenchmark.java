@@ -0,0 +1,55 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+// Compares the default bytecode profile (Java 5 class files, instance
+// methods, String.valueOf/concat chains) with CompilerOptions.modern() on a
+// concat heavy and a call heavy script.
+public class ModernProfileBenchmark {
+
+    static final String CONCAT_SOURCE = "function label(n : int) : int {\n" +
+            "  if (n < 1) {\n" +
+            "    return 0\n" +
+            "  }\n" +
+            "  var s = \"item\" + n + \"of\" + true + \"at\" + n + \"x\" + null + \"y\" + n\n" +
+            "  var t = s + \"z\" + s + n\n" +
+            "  return label(n - 1) + 1\n" +
+            "}\n" +
+            "print(label(500))\n";
+
+    static final String CALL_SOURCE = "function fib(n : int) : int {\n" +
+            "  if (n < 2) {\n" +
+            "    return n\n" +
+            "  }\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "}\n" +
+            "print(fib(22))\n";
+
+    public static void main(String[] args) {
+        report("concat heavy", CONCAT_SOURCE);
+        report("call heavy", CALL_SOURCE);
+    }
+
+    private static void report(String name, String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        double legacy = measure(new ByteCodeGenerator(program).compileToClass());
+        double modern = measure(new ByteCodeGenerator(program, CompilerOptions.modern()).compileToClass());
+        System.out.printf("%-13s default %8.1f us/run   modern %8.1f us/run%n", name, legacy, modern);
+    }
+
+    private static double measure(Class<? extends CatScriptProgram> programClass) {
+        for (int i = 0; i < 2_000; i++) {
+            ByteCodeGenerator.newInstance(programClass).run();
+        }
+        int runs = 5_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            ByteCodeGenerator.newInstance(programClass).run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / runs;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.OutputSink;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.OutputStream;
+
+// A script that prints a million lines, run on the interpreter with its
+// output collected in the runtime's buffer and handed over at the end (how
+// every caller used to get it), and streamed to an OutputStream that throws
+// the bytes away.  Reports time to the first line, total time and the
+// largest amount of output held in memory at once.
+public class OutputStreamingBenchmark {
+
+    public static void main(String[] args) {
+        StringBuilder list = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            list.append(i == 0 ? "" : ", ").append(i * 1000);
+        }
+        String source = "var l = " + list + "]\n" +
+                "for (i in l) {\n" +
+                "  for (j in l) {\n" +
+                "    print(i + j)\n" +
+                "  }\n" +
+                "}\n";
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+
+        for (int round = 0; round < 5; round++) {
+            // collected: the first line reaches the caller once the run is over
+            long start = System.nanoTime();
+            CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+            program.execute(runtime);
+            String output = runtime.getOutput();
+            double collectedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            CountingStream stream = new CountingStream();
+            start = System.nanoTime();
+            OutputSink sink = OutputSink.of(stream);
+            program.execute(new CatscriptRuntime(program.getGlobalSlots(), null, sink));
+            sink.flush();
+            double streamedMillis = (System.nanoTime() - start) / 1_000_000.0;
+            double firstByteMillis = (stream.firstWrite - start) / 1_000_000.0;
+
+            System.out.printf("collected: first line %7.1f ms, total %7.1f ms, %,d chars held%n",
+                    collectedMillis, collectedMillis, output.length());
+            System.out.printf("streamed:  first line %7.1f ms, total %7.1f ms, %,d bytes held (%,d written)%n",
+                    firstByteMillis, streamedMillis, 8192, stream.bytes);
+        }
+    }
+
+    // the sink in front of it buffers at most 8192 bytes
+    private static class CountingStream extends OutputStream {
+        long bytes;
+        long firstWrite;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            if (bytes == 0) {
+                firstWrite = System.nanoTime();
+            }
+            bytes += length;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.ParallelTokenizer;
+
+// Compares sequential and parallel tokenization of a large generated source.
+//
+//   usage: ParallelTokenizerBenchmark [megabytes, default 50]
+public class ParallelTokenizerBenchmark {
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < megabytes * 1024 * 1024) {
+            sb.append(TokenStorageBenchmark.CHUNK);
+        }
+        String source = sb.toString();
+        ParallelTokenizer parallel = new ParallelTokenizer();
+
+        for (int i = 0; i < 3; i++) {
+            new CatScriptTokenizer(source);
+            parallel.tokenize(source);
+        }
+        int runs = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            new CatScriptTokenizer(source);
+        }
+        double sequential = (System.nanoTime() - start) / 1_000_000.0 / runs;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            parallel.tokenize(source);
+        }
+        double parallelMillis = (System.nanoTime() - start) / 1_000_000.0 / runs;
+        System.out.printf("%d MB: sequential %.0f ms, parallel %.0f ms on %d threads%n",
+                megabytes, sequential, parallelMillis, Runtime.getRuntime().availableProcessors());
+    }
+}
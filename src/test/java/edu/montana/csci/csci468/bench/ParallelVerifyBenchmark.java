@@ -0,0 +1,62 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Compares sequential and parallel verification of a program with thousands
+// of functions.  Only verify() is timed, every run gets a freshly parsed tree.
+//
+//   usage: ParallelVerifyBenchmark [functions, default 5000] [threads, default all cores]
+public class ParallelVerifyBenchmark {
+
+    public static void main(String[] args) {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String source = source(functions);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        for (int i = 0; i < 5; i++) {
+            verify(source, null);
+            verify(source, pool);
+        }
+        double sequential = Double.MAX_VALUE;
+        double parallel = Double.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            sequential = Math.min(sequential, verify(source, null));
+            parallel = Math.min(parallel, verify(source, pool));
+        }
+        pool.shutdown();
+        System.out.printf("%,d functions: sequential %.1f ms, parallel %.1f ms (%.2fx) on %d threads%n",
+                functions, sequential, parallel, sequential / parallel, threads);
+    }
+
+    private static double verify(String source, ForkJoinPool pool) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        long start = System.nanoTime();
+        if (pool == null) {
+            program.verify();
+        } else {
+            program.verify(pool);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    static String source(int functions) {
+        StringBuilder sb = new StringBuilder("var total = 0\n");
+        for (int i = 0; i < functions; i++) {
+            sb.append("function f").append(i).append("(a : int, b : string, c : list<int>) : int {\n")
+                    .append("  var x = a * 2 + 1\n")
+                    .append("  var s = b + x\n")
+                    .append("  for (e in c) {\n")
+                    .append("    var y = e + x - a / 3\n")
+                    .append("    if (y > 10) { print(s + y) } else { print([y, x, a]) }\n")
+                    .append("  }\n")
+                    .append("  return f").append((i + 1) % functions).append("(x, s, [x, a, 1])\n")
+                    .append("}\n");
+        }
+        sb.append("print(f0(1, \"a\", [1, 2, 3]))\n");
+        return sb.toString();
+    }
+}
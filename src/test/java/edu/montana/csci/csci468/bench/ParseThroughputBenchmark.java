@@ -0,0 +1,90 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Parse throughput over the kind of sources the parser and eval tests use,
+// small statement programs with a few expression programs mixed in, and
+// over one large program that starts with a function call.
+public class ParseThroughputBenchmark {
+
+    static final String[] CORPUS = {
+            "print(1)",
+            "for(x in [1, 2, 3]){ print(x) }",
+            "if(x > 10){ print(x) } else { print( 10 ) }",
+            "var x : list<int> = [1, 2, 3]",
+            "x(1, 2, 3) y = 1",
+            "function x(a : object, b : int, c : bool) {}",
+            "function x():int{return 10} print( x() )",
+            "var x = 8 \n if(x < 12) {\n  print(x)\n   }\n",
+            "for(x in [1, 2, 3]){ for(y in [1, 2, 3]){ print(y) } }",
+            "function foo(x){ print(x) }\nfoo(1)\nfoo(2)\n",
+            "foo([1, 2, 3], 4 * 5)\nvar y = foo(1)\nprint(y)\n",
+            "1 + 2 * 3 - 4",
+            "(1 + 2) == 3",
+            "[1, 2, 3]",
+            "\"hello\"",
+    };
+
+    public static void main(String[] args) throws IOException {
+        String demo;
+        try (InputStream in = ParseThroughputBenchmark.class.getResourceAsStream("/scripts/demo.cat")) {
+            demo = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] corpus = new String[CORPUS.length + 1];
+        System.arraycopy(CORPUS, 0, corpus, 0, CORPUS.length);
+        corpus[CORPUS.length] = demo;
+
+        StringBuilder sb = new StringBuilder("setup([");
+        for (int i = 0; i < 150_000; i++) {
+            sb.append(i).append(", ");
+        }
+        sb.append("0])\n");
+        while (sb.length() < 3 * 1024 * 1024) {
+            sb.append(TokenStorageBenchmark.CHUNK);
+        }
+        String large = sb.toString();
+
+        long chars = 0;
+        for (String source : corpus) {
+            chars += source.length();
+        }
+        for (int i = 0; i < 20_000; i++) {
+            parseAll(corpus);
+        }
+        // best of five runs
+        int rounds = 50_000;
+        double seconds = Double.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                parseAll(corpus);
+            }
+            seconds = Math.min(seconds, (System.nanoTime() - start) / 1_000_000_000.0);
+        }
+        System.out.printf("test corpus:   %,.0f programs/second, %.1f MB/second%n",
+                rounds * corpus.length / seconds, rounds * chars / seconds / 1024 / 1024);
+
+        for (int i = 0; i < 5; i++) {
+            new CatScriptParser().parse(large);
+        }
+        seconds = Double.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            new CatScriptParser().parse(large);
+            seconds = Math.min(seconds, (System.nanoTime() - start) / 1_000_000_000.0);
+        }
+        System.out.printf("large program: %.1f MB/second%n", large.length() / seconds / 1024 / 1024);
+    }
+
+    private static int parseAll(String[] corpus) {
+        int statements = 0;
+        for (String source : corpus) {
+            statements += new CatScriptParser().parse(source).getStatements().size();
+        }
+        return statements;
+    }
+}
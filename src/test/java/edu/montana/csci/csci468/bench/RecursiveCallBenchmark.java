@@ -0,0 +1,41 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+// Measures interpreter function calls per second on a recursive fibonacci
+// script, which returns a value from every call.
+public class RecursiveCallBenchmark {
+
+    static final int N = 25;
+
+    static final String SOURCE = "function fib(n : int) : int {\n" +
+            "  if (n < 2) {\n" +
+            "    return n\n" +
+            "  }\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "}\n" +
+            "print(fib(" + N + "))\n";
+
+    public static void main(String[] args) {
+        CatScriptProgram program = new CatScriptParser().parse(SOURCE);
+        program.verify();
+
+        long callsPerRun = calls(N);
+        for (int i = 0; i < 5; i++) {
+            program.run();
+        }
+
+        int runs = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            program.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("fib(%d): %,.0f calls/second%n", N, callsPerRun * runs / seconds);
+    }
+
+    private static long calls(int n) {
+        return n < 2 ? 1 : 1 + calls(n - 1) + calls(n - 2);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.RuntimePool;
+import edu.montana.csci.csci468.parser.ParsedProgramCache;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+// Bytes allocated and time per /evaluate-style request, for three ways of
+// serving it: a fresh tree from the disk cache run on a new runtime (how the
+// server used to do it), the shared tree on a new runtime, and the shared
+// tree on a pooled runtime.  The output string is part of every request.
+public class RuntimeReuseBenchmark {
+
+    static final String HELLO = "var x = \"hello\"\nprint(x)\n";
+
+    static final String LOOPS = "function square(n : int) : int {\n" +
+            "  return n * n\n" +
+            "}\n" +
+            "var total = 0\n" +
+            "for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+            "  for (j in [1, 2, 3, 4, 5]) {\n" +
+            "    total = total + square(i) - j\n" +
+            "  }\n" +
+            "}\n" +
+            "print(total)\n";
+
+    public static void main(String[] args) throws IOException {
+        ParsedProgramCache cache = new ParsedProgramCache(Files.createTempDirectory("catscript-ast"), 16);
+        RuntimePool pool = new RuntimePool(4);
+        for (String source : new String[]{HELLO, LOOPS, RecursiveCallBenchmark.SOURCE}) {
+            String name = source == HELLO ? "hello" : source == LOOPS ? "loops" : "fib(" + RecursiveCallBenchmark.N + ")";
+            int runs = source == RecursiveCallBenchmark.SOURCE ? 20 : 2_000;
+            System.out.println(name + ":");
+            measure("  fresh tree, new runtime ", runs, () -> {
+                CatScriptProgram program = cache.getProgram(source);
+                return program.run();
+            });
+            measure("  shared tree, new runtime", runs, () -> {
+                CatScriptProgram program = cache.getSharedProgram(source);
+                CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+                program.execute(runtime);
+                return runtime.getOutput();
+            });
+            measure("  shared tree, pooled     ", runs, () -> pool.execute(cache.getSharedProgram(source)));
+        }
+    }
+
+    private static void measure(String label, int runs, Supplier<String> request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        // long enough for escape analysis to kick in, or the bytes are mostly
+        // boxes the compiled code would never allocate
+        for (int i = 0; i < Math.max(runs, 300); i++) {
+            request.get();
+        }
+        double bestBytes = Double.MAX_VALUE;
+        double bestMicros = Double.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                request.get();
+            }
+            bestMicros = Math.min(bestMicros, (System.nanoTime() - start) / 1000.0 / runs);
+            bestBytes = Math.min(bestBytes, (threads.getThreadAllocatedBytes(thread) - bytes) / (double) runs);
+        }
+        System.out.printf("%s %,10.0f bytes/request %,10.1f us/request%n", label, bestBytes, bestMicros);
+    }
+}
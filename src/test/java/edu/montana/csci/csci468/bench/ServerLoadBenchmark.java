@@ -0,0 +1,266 @@
+package edu.montana.csci.csci468.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Starts CatScriptServer in a JVM of its own, once with scripts on the
+// request threads and once on script threads, and drives it from local
+// client threads with a mix of requests: mostly cheap evaluations, some
+// slow ones, compilations of scripts it has not seen before (so each one
+// defines a class), transpilations, and tokenizing, which never runs a
+// script.  Both servers get the same small Jetty pool.  Reports p50/p99
+// latency per kind of request, and how many attempts were turned away by
+// admission control.  A client that is turned away waits as long as the
+// Retry-After header asks and sends the same request again; its latency runs
+// from the first attempt to the response that got through.
+public class ServerLoadBenchmark {
+
+    static final int CLIENTS = 32;
+    static final int REQUEST_THREADS = 8;
+    static final int MAX_SCRIPTS = 8;
+    static final long WARMUP_MILLIS = 5_000;
+    static final long MEASURE_MILLIS = 15_000;
+
+    // waited after a 503 without a usable Retry-After
+    static final long DEFAULT_RETRY_MILLIS = 1_000;
+
+    static final String[] KINDS = {"tokenize", "fast evaluate", "slow evaluate", "compile", "transpile"};
+    // percentages, in the order of KINDS
+    static final int[] MIX = {10, 70, 10, 7, 3};
+
+    static final String FAST = "print(1 + 2)\n";
+    static final String SLOW;
+
+    static {
+        StringBuilder list = new StringBuilder("[0");
+        for (int i = 1; i < 150; i++) {
+            list.append(", ").append(i);
+        }
+        list.append("]");
+        SLOW = "var t = 0\n" +
+                "for (a in " + list + ") {\n  for (b in " + list + ") {\n    t = t + a - b\n  }\n}\n" +
+                "print(t)\n";
+    }
+
+    public static void main(String[] args) throws Exception {
+        run("request threads", "--request-threads", String.valueOf(REQUEST_THREADS));
+        run("script threads", "--request-threads", String.valueOf(REQUEST_THREADS),
+                "--script-threads", String.valueOf(MAX_SCRIPTS));
+    }
+
+    private static void run(String mode, String... options) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>(Arrays.asList(
+                System.getProperty("java.home") + "/bin/java", "-cp", System.getProperty("java.class.path"),
+                "edu.montana.csci.csci468.CatScriptServer", "--port", String.valueOf(port)));
+        command.addAll(Arrays.asList(options));
+        Process server = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            String base = "http://localhost:" + port;
+            awaitStartup(base);
+            Load warmup = new Load(base, System.currentTimeMillis() + WARMUP_MILLIS);
+            warmup.run();
+            Load load = new Load(base, System.currentTimeMillis() + MEASURE_MILLIS);
+            load.run();
+            load.report(mode);
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+
+    private static void awaitStartup(String base) throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            try {
+                if (get(base + "/tokenize?src=1").status == 200) {
+                    return;
+                }
+            } catch (IOException notYet) {
+                // not listening yet
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("server did not start");
+    }
+
+    private static Reply get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return new Reply(status, retryAfterMillis(connection.getHeaderField("Retry-After")));
+    }
+
+    // only the delay-seconds form, the server never sends a date
+    private static long retryAfterMillis(String header) {
+        if (header == null) {
+            return DEFAULT_RETRY_MILLIS;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.trim())) * 1_000;
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_MILLIS;
+        }
+    }
+
+    private static class Reply {
+        final int status;
+        final long retryAfterMillis;
+
+        Reply(int status, long retryAfterMillis) {
+            this.status = status;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+
+    private static class Load {
+        final String base;
+        final long until;
+        // latencies in microseconds, per kind of request
+        final List<List<Long>> latencies = new ArrayList<>();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger unique = new AtomicInteger();
+
+        Load(String base, long until) {
+            this.base = base;
+            this.until = until;
+            for (int i = 0; i < KINDS.length; i++) {
+                latencies.add(new ArrayList<>());
+            }
+        }
+
+        void run() throws InterruptedException {
+            Thread[] clients = new Thread[CLIENTS];
+            for (int i = 0; i < clients.length; i++) {
+                Random random = new Random(i);
+                clients[i] = new Thread(() -> client(random));
+                clients[i].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+        }
+
+        private void client(Random random) {
+            try {
+                requests(random);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void requests(Random random) throws InterruptedException {
+            while (System.currentTimeMillis() < until) {
+                int kind = pick(random.nextInt(100));
+                long micros = send(base + urlFor(kind));
+                if (micros >= 0) {
+                    synchronized (latencies) {
+                        latencies.get(kind).add(micros);
+                    }
+                }
+            }
+        }
+
+        // sends url until it is not turned away, and returns the microseconds
+        // from the first attempt to the last response, or -1 if it failed or
+        // was still being turned away when the run ended
+        private long send(String url) throws InterruptedException {
+            long start = System.nanoTime();
+            while (true) {
+                Reply reply;
+                try {
+                    reply = get(url);
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    return -1;
+                }
+                if (reply.status != 503) {
+                    return (System.nanoTime() - start) / 1_000;
+                }
+                rejected.incrementAndGet();
+                if (System.currentTimeMillis() + reply.retryAfterMillis >= until) {
+                    return -1;
+                }
+                Thread.sleep(reply.retryAfterMillis);
+            }
+        }
+
+        private static int pick(int percent) {
+            for (int kind = 0; kind < MIX.length; kind++) {
+                percent -= MIX[kind];
+                if (percent < 0) {
+                    return kind;
+                }
+            }
+            return 0;
+        }
+
+        private String urlFor(int kind) {
+            switch (kind) {
+                case 0:
+                    return "/tokenize?src=" + encode(FAST);
+                case 1:
+                    return "/evaluate?src=" + encode(FAST);
+                case 2:
+                    return "/evaluate?src=" + encode(SLOW);
+                case 3:
+                    // a source the compiled program cache has not seen
+                    return "/compile?src=" + encode("var seed = " + unique.incrementAndGet() + "\n" + SLOW);
+                default:
+                    return "/transpile?src=" + encode(FAST);
+            }
+        }
+
+        void report(String mode) {
+            int total = 0;
+            List<Long> all = new ArrayList<>();
+            System.out.printf("%s (%d clients, %d Jetty threads)%n", mode, CLIENTS, REQUEST_THREADS);
+            for (int kind = 0; kind < KINDS.length; kind++) {
+                List<Long> times = latencies.get(kind);
+                all.addAll(times);
+                total += times.size();
+                System.out.printf("  %-14s %6d requests  p50 %8.1f ms  p99 %8.1f ms%n",
+                        KINDS[kind], times.size(), percentile(times, 50), percentile(times, 99));
+            }
+            System.out.printf("  %-14s %6d requests  p50 %8.1f ms  p99 %8.1f ms%n",
+                    "all", total, percentile(all, 50), percentile(all, 99));
+            System.out.printf("  %.0f requests/s, %d attempts rejected with 503, %d failed%n",
+                    total * 1000.0 / MEASURE_MILLIS, rejected.get(), failed.get());
+        }
+
+        private static double percentile(List<Long> micros, int percentile) {
+            if (micros.isEmpty()) {
+                return 0;
+            }
+            Long[] sorted = micros.toArray(new Long[0]);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1000.0;
+        }
+    }
+
+    private static String encode(String source) {
+        return URLEncoder.encode(source, StandardCharsets.UTF_8);
+    }
+}
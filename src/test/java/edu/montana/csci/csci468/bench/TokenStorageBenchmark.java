@@ -0,0 +1,84 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.Token;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares the retained heap of the array backed TokenList on a ~10 MB
+// generated source against the old layout of one Token (with its string
+// value) per lexeme in an ArrayList, and reports tokenize throughput.
+public class TokenStorageBenchmark {
+
+    static final String CHUNK = "function foo_bar(x : int, y : list<int>) : int {\n" +
+            "  var total = x * 2 + 17\n" +
+            "  for (item in y) {\n" +
+            "    if (item >= total) {\n" +
+            "      print(\"large\")\n" +
+            "    }\n" +
+            "  }\n" +
+            "  return total - 1\n" +
+            "}\n";
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < megabytes * 1024 * 1024) {
+            sb.append(CHUNK);
+        }
+        String source = sb.toString();
+
+        for (int i = 0; i < 3; i++) {
+            new CatScriptTokenizer(source).getTokens();
+        }
+        int runs = 5;
+        long start = System.nanoTime();
+        TokenList tokens = null;
+        for (int i = 0; i < runs; i++) {
+            tokens = new CatScriptTokenizer(source).getTokens();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0 / runs;
+        System.out.printf("tokenize: %,d tokens, %.1f MB/s%n", tokens.size(), source.length() / 1024.0 / 1024.0 / seconds);
+
+        long before = usedHeap();
+        tokens = new CatScriptTokenizer(source).getTokens();
+        long arrays = usedHeap() - before;
+
+        before = usedHeap();
+        List<Token> objects = new ArrayList<>();
+        for (Token token : tokens) {
+            token.getStringValue();
+            objects.add(token);
+        }
+        long perToken = usedHeap() - before;
+
+        int identifiers = 0;
+        start = System.nanoTime();
+        tokens.reset();
+        while (tokens.hasMoreTokens()) {
+            if (tokens.match(TokenType.IDENTIFIER)) {
+                identifiers++;
+            }
+            tokens.consumeToken();
+        }
+        double scanMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf("array backed token list: %,d KB retained%n", arrays / 1024);
+        System.out.printf("one Token per lexeme:    %,d KB more%n", perToken / 1024);
+        System.out.printf("match/consume scan: %,d identifiers in %.1f ms%n", identifiers, scanMillis);
+        if (objects.size() != tokens.size()) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AotCompilerTest {
+
+    static final String SOURCE = "var x = 21\n" +
+            "if (x > 5) {\n" +
+            "  print(x * 2)\n" +
+            "}\n" +
+            "print(\"done\")\n";
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void classFileCanBeWrittenLoadedAndRun() throws Exception {
+        Path classFile = new AotCompiler().writeClassFile(parse(SOURCE), "scripts.Answer", outputDirectory);
+        assertEquals(outputDirectory.resolve("scripts/Answer.class"), classFile);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{outputDirectory.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> programClass = loader.loadClass("scripts.Answer");
+            CatScriptProgram program = ByteCodeGenerator.newInstance(programClass.asSubclass(CatScriptProgram.class));
+            assertEquals("42\ndone\n", program.run());
+        }
+    }
+
+    @Test
+    void jarRunsThroughItsMainClass() throws Exception {
+        Path jar = new AotCompiler().writeJar(parse(SOURCE), "scripts.Answer", outputDirectory.resolve("answer.jar"), null);
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            assertEquals("scripts.Answer", jarFile.getManifest().getMainAttributes().getValue("Main-Class"));
+        }
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> programClass = loader.loadClass("scripts.Answer");
+            String output = captureStdout(() -> {
+                try {
+                    programClass.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertEquals("42\ndone\n", output);
+        }
+    }
+
+    private String captureStdout(Runnable runnable) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            runnable.run();
+        } finally {
+            System.setOut(out);
+        }
+        return captured.toString();
+    }
+
+    private CatScriptProgram parse(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
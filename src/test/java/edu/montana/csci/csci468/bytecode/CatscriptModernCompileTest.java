@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptModernCompileTest extends CatscriptTestBase {
+
+    private String compileModern(String src) {
+        return compile(src, CompilerOptions.modern());
+    }
+
+    @Test
+    void stringConcatenationChainsWork() {
+        assertEquals("a1btruenull\n", compileModern("print(\"a\" + 1 + \"b\" + true + null)"));
+        assertEquals("3a\n", compileModern("print(1 + 2 + \"a\")"));
+        assertEquals("x[1, 2]\n", compileModern("print(\"x\" + [1, 2])"));
+    }
+
+    @Test
+    void stringConcatenationWithVariablesWorks() {
+        assertEquals("helloworlds\n", compileModern("var x = \"world\"\n" +
+                "var y = \"hello\" + x\n" +
+                "print(y + \"s\")"));
+    }
+
+    @Test
+    void stringConcatenationChainsLongerThanOneCallWork() {
+        StringBuilder src = new StringBuilder("var s = \"a\"\nprint(s");
+        for (int i = 1; i < 260; i++) {
+            src.append(i % 2 == 0 ? " + s" : " + " + i);
+        }
+        src.append(")");
+        StringBuilder expected = new StringBuilder("a");
+        for (int i = 1; i < 260; i++) {
+            expected.append(i % 2 == 0 ? "a" : String.valueOf(i));
+        }
+        assertEquals(expected + "\n", compileModern(src.toString()));
+    }
+
+    @Test
+    void staticFunctionsCanCallEachOther() {
+        assertEquals("55\n", compileModern("function fib(n : int) : int {\n" +
+                "  if (n < 2) {\n" +
+                "    return n\n" +
+                "  }\n" +
+                "  return fib(n - 1) + fib(n - 2)\n" +
+                "}\n" +
+                "print(fib(10))"));
+    }
+
+    @Test
+    void staticFunctionsCanPrintAndReadGlobals() {
+        assertEquals("x42\n", compileModern("var x = 42\n" +
+                "function foo() {\n" +
+                "  print(\"x\" + x)\n" +
+                "}\n" +
+                "foo()"));
+    }
+
+    @Test
+    void indyConcatRequiresAModernTarget() {
+        CompilerOptions options = new CompilerOptions();
+        options.setIndyStringConcat(true);
+        assertThrows(IllegalArgumentException.class, () -> compile("print(\"a\" + 1)", options));
+
+        options.setTargetVersion(Opcodes.V9);
+        assertEquals("a1\n", compile("print(\"a\" + 1)", options));
+    }
+}
@@ -0,0 +1,105 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptTieredExecutionTest extends CatscriptTestBase {
+
+    private CatScriptProgram parse(String src) {
+        CatScriptProgram program = new CatScriptParser().parse(src);
+        program.verify();
+        return program;
+    }
+
+    @Test
+    void hotFunctionsAreCompiled() {
+        CatScriptProgram program = parse("function fib(n : int) : int {\n" +
+                "  if (n < 2) {\n" +
+                "    return n\n" +
+                "  }\n" +
+                "  return fib(n - 1) + fib(n - 2)\n" +
+                "}\n" +
+                "print(fib(15))");
+        TieredCompiler tieredCompiler = new TieredCompiler(program, 10);
+        assertEquals("610\n", tieredCompiler.execute());
+        tieredCompiler.awaitCompilations();
+        assertTrue(tieredCompiler.isCompiled(program.getFunction("fib")));
+
+        assertEquals("610\n", tieredCompiler.execute());
+    }
+
+    @Test
+    void compiledFunctionsPrintToTheRuntime() {
+        CatScriptProgram program = parse("function foo(x : int) {\n" +
+                "  print(x)\n" +
+                "}\n" +
+                "for (i in [1, 2, 3]) {\n" +
+                "  foo(i)\n" +
+                "}");
+        TieredCompiler tieredCompiler = new TieredCompiler(program, 1);
+        assertEquals("1\n2\n3\n", tieredCompiler.execute());
+        tieredCompiler.awaitCompilations();
+        assertTrue(tieredCompiler.isCompiled(program.getFunction("foo")));
+
+        assertEquals("1\n2\n3\n", tieredCompiler.execute());
+    }
+
+    @Test
+    void loopsInAFunctionCalledOnceMakeItHot() {
+        CatScriptProgram program = parse("function sum(x : int) : int {\n" +
+                "  var total = 0\n" +
+                "  for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+                "    total = total + x\n" +
+                "  }\n" +
+                "  return total\n" +
+                "}\n" +
+                "print(sum(2))");
+        TieredCompiler tieredCompiler = new TieredCompiler(program, 5);
+        assertEquals("20\n", tieredCompiler.execute());
+        tieredCompiler.awaitCompilations();
+        assertTrue(tieredCompiler.isCompiled(program.getFunction("sum")));
+
+        assertEquals("20\n", tieredCompiler.execute());
+    }
+
+    @Test
+    void functionsUsingGlobalsStayInterpreted() {
+        CatScriptProgram program = parse("var total = 0\n" +
+                "function add(x : int) {\n" +
+                "  total = total + x\n" +
+                "}\n" +
+                "for (i in [1, 2, 3, 4]) {\n" +
+                "  add(i)\n" +
+                "}\n" +
+                "print(total)");
+        TieredCompiler tieredCompiler = new TieredCompiler(program, 1);
+        assertEquals("10\n", tieredCompiler.execute());
+        tieredCompiler.awaitCompilations();
+        assertFalse(tieredCompiler.isCompiled(program.getFunction("add")));
+        assertNotNull(tieredCompiler.getCompileFailure(program.getFunction("add")));
+    }
+
+    @Test
+    void compiledVersionsBelongToTheirTieredCompiler() {
+        CatScriptProgram program = parse("function twice(x : int) : int {\n" +
+                "  return x * 2\n" +
+                "}\n" +
+                "for (i in [1, 2, 3]) {\n" +
+                "  print(twice(i))\n" +
+                "}");
+        TieredCompiler hot = new TieredCompiler(program, 1);
+        assertEquals("2\n4\n6\n", hot.execute());
+        hot.awaitCompilations();
+        assertTrue(hot.isCompiled(program.getFunction("twice")));
+
+        // the tree itself was left alone, another compiler starts from scratch
+        TieredCompiler cold = new TieredCompiler(program, 1000);
+        assertEquals("2\n4\n6\n", cold.execute());
+        assertFalse(cold.isCompiled(program.getFunction("twice")));
+    }
+
+}
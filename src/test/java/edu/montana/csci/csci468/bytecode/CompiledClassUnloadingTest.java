@@ -0,0 +1,41 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledClassUnloadingTest {
+
+    @Test
+    void compiledProgramClassesCanBeCollected() throws InterruptedException {
+        WeakReference<Class<?>> programClass = compileAndRun();
+        for (int i = 0; i < 20 && programClass.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(programClass.get());
+    }
+
+    @Test
+    void eachCompilationGetsItsOwnClassLoader() {
+        CatScriptProgram first = compile("print(1)");
+        CatScriptProgram second = compile("print(2)");
+        assertNotSame(first.getClass().getClassLoader(), second.getClass().getClassLoader());
+    }
+
+    private WeakReference<Class<?>> compileAndRun() {
+        CatScriptProgram compiled = compile("print(1)");
+        assertEquals("1\n", compiled.run());
+        return new WeakReference<>(compiled.getClass());
+    }
+
+    private CatScriptProgram compile(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return new ByteCodeGenerator(program).compileToBytecode();
+    }
+}
@@ -0,0 +1,60 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledProgramCacheTest {
+
+    @Test
+    void repeatedSourcesAreServedFromTheCache() {
+        CompiledProgramCache cache = new CompiledProgramCache(10);
+        CatScriptProgram first = cache.newProgram("print(1)");
+        CatScriptProgram second = cache.newProgram("print(1)");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertSame(first.getClass(), second.getClass());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void lineEndingsInsideStringsAreKeptApart() {
+        CompiledProgramCache cache = new CompiledProgramCache(10);
+        assertEquals("a\nb\n", cache.newProgram("print(\"a\nb\")").run());
+        assertEquals("a\r\nb\n", cache.newProgram("print(\"a\r\nb\")").run());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void cachedProgramsHaveTheirOwnGlobals() {
+        CompiledProgramCache cache = new CompiledProgramCache(10);
+        CatScriptProgram first = cache.newProgram("var x = 1\nprint(x)\nx = 2");
+        assertEquals("1\n", first.run());
+        CatScriptProgram second = cache.newProgram("var x = 1\nprint(x)\nx = 2");
+        assertEquals("1\n", second.run());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        CompiledProgramCache cache = new CompiledProgramCache(2);
+        cache.newProgram("print(1)");
+        cache.newProgram("print(2)");
+        cache.newProgram("print(1)");
+        cache.newProgram("print(3)");
+        assertEquals(2, cache.size());
+        cache.newProgram("print(1)");
+        assertEquals(2, cache.getHits());
+        cache.newProgram("print(2)");
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void sourcesWithErrorsAreNotCached() {
+        CompiledProgramCache cache = new CompiledProgramCache(10);
+        assertThrows(ParseErrorException.class, () -> cache.newProgram("print(x)"));
+        assertEquals(0, cache.size());
+    }
+}
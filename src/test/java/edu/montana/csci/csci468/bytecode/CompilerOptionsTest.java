@@ -0,0 +1,69 @@
+package edu.montana.csci.csci468.bytecode;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompilerOptionsTest {
+
+    @Test
+    void defaultOptionsDoNotWriteToStdout() {
+        assertEquals("", compileCapturingStdout(new CompilerOptions()));
+    }
+
+    @Test
+    void debugDumpWritesTheDisassembledClass() {
+        String dump = compileCapturingStdout(CompilerOptions.debug());
+        assertTrue(dump.contains("JVM Bytecode"));
+        assertTrue(dump.contains("execute(Ledu/montana/csci/csci468/eval/CatscriptRuntime;)V"));
+    }
+
+    @Test
+    void targetVersionIsWrittenToTheClassFile() {
+        CompilerOptions options = new CompilerOptions();
+        options.setTargetVersion(Opcodes.V1_6);
+        options.setVerification(CompilerOptions.Verification.DATA_FLOW);
+        CatScriptProgram compiled = new ByteCodeGenerator(parse("print(1)"), options).compileToBytecode();
+        assertEquals("1\n", compiled.run());
+    }
+
+    @Test
+    void copiesAreIndependentOfTheOriginal() {
+        CompilerOptions options = CompilerOptions.modern();
+        options.setMetered(true);
+        CompilerOptions copy = options.copy();
+        copy.setVerification(CompilerOptions.Verification.DATA_FLOW);
+        copy.setStaticFunctions(false);
+        assertEquals(CompilerOptions.Verification.NONE, options.getVerification());
+        assertTrue(options.isStaticFunctions());
+        assertEquals(Opcodes.V11, copy.getTargetVersion());
+        assertTrue(copy.isIndyStringConcat());
+        assertTrue(copy.isMetered());
+    }
+
+    private String compileCapturingStdout(CompilerOptions options) {
+        CatScriptProgram program = parse("var x = 1\nprint(x + 1)");
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            CatScriptProgram compiled = new ByteCodeGenerator(program, options).compileToBytecode();
+            assertEquals("2\n", compiled.run());
+        } finally {
+            System.setOut(out);
+        }
+        return captured.toString();
+    }
+
+    private CatScriptProgram parse(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
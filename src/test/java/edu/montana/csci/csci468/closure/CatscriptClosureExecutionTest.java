@@ -0,0 +1,88 @@
+package edu.montana.csci.csci468.closure;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatscriptClosureExecutionTest extends CatscriptTestBase {
+
+    @Test
+    void expressionsWorkProperly() {
+        assertEquals("-7\n", executeClosures("-(1 + 2) * 4 / 2 - (3 - 2)"));
+        assertEquals("true\n", executeClosures("not (2 * 3 < 1 + 4)"));
+        assertEquals("a3\n", executeClosures("\"a\" + (1 + 2)"));
+        assertEquals("true\n", executeClosures("1000 == 1000"));
+        assertEquals("true\n", executeClosures("true != null"));
+        assertEquals("[1, 2, 3]\n", executeClosures("[1, 2, 3]"));
+    }
+
+    @Test
+    void printStatementWorksProperly() {
+        assertEquals("1\n", executeClosures("print(1)"));
+        assertEquals("1\n2\n", executeClosures("print(1)\n" +
+                "print(2)"));
+        assertEquals("null\n", executeClosures("print(null)"));
+    }
+
+    @Test
+    void ifStatementWorksProperly() {
+        assertEquals("1\n", executeClosures("if(true){ print(1) }"));
+        assertEquals("", executeClosures("if(false){ print(1) }"));
+        assertEquals("2\n", executeClosures("if(false){ print(1) }  else { print(2) }"));
+    }
+
+    @Test
+    void varAndAssignmentStatementsWorkProperly() {
+        assertEquals("20\n", executeClosures("var x = 20\n" +
+                "var y = 10\n" +
+                "y = x\n" +
+                "print(y)"));
+        assertEquals("10\n", executeClosures("var x = 20\n" +
+                "function foo() {\n" +
+                "  x = 10\n" +
+                "}\n" +
+                "foo()\n" +
+                "print(x)"));
+    }
+
+    @Test
+    void forStatementWorksProperly() {
+        assertEquals("1\n2\n3\n", executeClosures("for(x in [1, 2, 3]) { print(x) }"));
+        assertEquals("1\n2\n1\n2\n", executeClosures("for(x in [1, 2]){ for(y in [1, 2]){ print(y) } }"));
+    }
+
+    @Test
+    void functionsWorkProperly() {
+        assertEquals("9\n8\n7\n6\n5\n4\n3\n2\n1\n0\n", executeClosures(
+                "function foo(x : int) {\n" +
+                        "print(x)" +
+                        "if(x > 0) {" +
+                        "  foo(x - 1)" +
+                        "}" +
+                "}\n" +
+                "foo(9)"
+        ));
+        assertEquals("55\n", executeClosures(
+                "function fib(n : int) : int {\n" +
+                        "  if (n < 2) {\n" +
+                        "    return n\n" +
+                        "  }\n" +
+                        "  return fib(n - 1) + fib(n - 2)\n" +
+                        "}\n" +
+                        "print(fib(10))"
+        ));
+        assertEquals("2\n", executeClosures(
+                "function first(l : list<int>) : int {\n" +
+                        "  for (x in l) {\n" +
+                        "    if (x > 1) {\n" +
+                        "      return x\n" +
+                        "    }\n" +
+                        "  }\n" +
+                        "  return 0\n" +
+                        "}\n" +
+                        "print(first([1, 2, 3]))"
+        ));
+    }
+
+}
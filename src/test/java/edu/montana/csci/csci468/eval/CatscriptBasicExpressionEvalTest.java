@@ -78,4 +78,12 @@ public class CatscriptBasicExpressionEvalTest extends CatscriptTestBase {
         assertEquals(1, evaluateExpression("(1)"));
     }
 
+    @Test
+    void nestedArithmeticEvaluatesProperly() {
+        assertEquals(-7, evaluateExpression("-(1 + 2) * 4 / 2 - (3 - 2)"));
+        assertEquals(true, evaluateExpression("not (2 * 3 < 1 + 4)"));
+        assertEquals(false, evaluateExpression("not not (1 - 5 > -(2 * 2))"));
+        assertEquals("a3", evaluateExpression("\"a\" + (1 + 2)"));
+    }
+
 }
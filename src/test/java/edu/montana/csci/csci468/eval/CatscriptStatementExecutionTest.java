@@ -93,5 +93,37 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
         ));
     }
 
+    @Test
+    void globalAssignmentStatementsWork() {
+        assertEquals("20\n", executeProgram("var x = 20\n" +
+                "var y = 10\n" +
+                "y = x\n" +
+                "print(y)"));
+    }
+
+    @Test
+    void globalVarStatementsAreSharedAcrossFunctionCalls() {
+        assertEquals("10\n", executeProgram("var x = 20\n" +
+                "function foo() {\n" +
+                "  x = 10\n" +
+                "}\n" +
+                "foo()\n" +
+                "print(x)"));
+    }
+
+    @Test
+    void recursiveCallsGetTheirOwnFrames() {
+        assertEquals("3\n2\n1\n1\n2\n3\n", executeProgram(
+                "function foo(x : int) {\n" +
+                        "  var y = x\n" +
+                        "  print(y)\n" +
+                        "  if(x > 1) {\n" +
+                        "    foo(x - 1)\n" +
+                        "  }\n" +
+                        "  print(y)\n" +
+                        "}\n" +
+                        "foo(3)"
+        ));
+    }
 
 }
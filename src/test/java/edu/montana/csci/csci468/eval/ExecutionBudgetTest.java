@@ -0,0 +1,274 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.bytecode.CompilerOptions;
+import edu.montana.csci.csci468.bytecode.TieredCompiler;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionBudgetTest {
+
+    // the bytecode backend can only loop over list literals
+    static final String TEN = "[1, 2, 3, 4, 5, 6, 7, 8, 9, 10]";
+
+    static final String LOOPS = "var total = 0\n" +
+            "for (i in " + TEN + ") {\n" +
+            "  for (j in " + TEN + ") {\n" +
+            "    total = total + i * j\n" +
+            "  }\n" +
+            "}\n" +
+            "print(total)\n";
+
+    static final String RECURSION = "function down(n : int) : int {\n" +
+            "  if (n < 1) {\n" +
+            "    return 0\n" +
+            "  }\n" +
+            "  return down(n - 1) + 1\n" +
+            "}\n" +
+            "print(down(50))\n";
+
+    @Test
+    void programsWithinTheirBudgetRunToTheEnd() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(110);
+        budget.setMaxCallDepth(51);
+        budget.setMaxOutputChars(5);
+        budget.setMaxWallTimeMillis(60_000);
+        assertEquals("3025\n", interpret(LOOPS, budget));
+        assertEquals("50\n", interpret(RECURSION, budget));
+        assertEquals("3025\n", compiled(LOOPS, budget));
+        assertEquals("50\n", compiled(RECURSION, budget));
+    }
+
+    @Test
+    void interpreterStopsAtEachLimit() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(109);
+        assertLimit(ExecutionBudget.Limit.LOOP_ITERATIONS, () -> interpret(LOOPS, budget));
+
+        ExecutionBudget shallow = new ExecutionBudget();
+        shallow.setMaxCallDepth(50);
+        assertLimit(ExecutionBudget.Limit.CALL_DEPTH, () -> interpret(RECURSION, shallow));
+
+        ExecutionBudget quiet = new ExecutionBudget();
+        quiet.setMaxOutputChars(4);
+        assertLimit(ExecutionBudget.Limit.OUTPUT, () -> interpret(LOOPS, quiet));
+
+        ExecutionBudget quick = new ExecutionBudget();
+        quick.setMaxWallTimeMillis(50);
+        assertLimit(ExecutionBudget.Limit.WALL_TIME, () -> interpret(forever(), quick));
+    }
+
+    @Test
+    void compiledCodeStopsAtEachLimit() {
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(109);
+        assertLimit(ExecutionBudget.Limit.LOOP_ITERATIONS, () -> compiled(LOOPS, budget));
+
+        ExecutionBudget shallow = new ExecutionBudget();
+        shallow.setMaxCallDepth(50);
+        assertLimit(ExecutionBudget.Limit.CALL_DEPTH, () -> compiled(RECURSION, shallow));
+
+        ExecutionBudget quiet = new ExecutionBudget();
+        quiet.setMaxOutputChars(4);
+        assertLimit(ExecutionBudget.Limit.OUTPUT, () -> compiled(LOOPS, quiet));
+
+        ExecutionBudget quick = new ExecutionBudget();
+        quick.setMaxWallTimeMillis(50);
+        assertLimit(ExecutionBudget.Limit.WALL_TIME, () -> compiled(forever(), quick));
+    }
+
+    @Test
+    void callDepthIsBackToZeroAfterEveryReturn() {
+        // a hundred calls in a row, none of them deeper than one
+        String source = "function one(n : int) : int {\n  return n\n}\n" +
+                "function nothing() {\n  print(1)\n}\n" +
+                "var total = 0\n" +
+                "for (i in " + TEN + ") {\n  for (j in " + TEN + ") {\n    total = total + one(j)\n  }\n}\n" +
+                "nothing()\n" +
+                "print(total)\n";
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxCallDepth(1);
+        assertEquals("1\n550\n", interpret(source, budget));
+        assertEquals("1\n550\n", compiled(source, budget));
+    }
+
+    @Test
+    void loopsLeftByAReturnOnlyCountWhatTheyRan() {
+        // ten calls that each stop after two iterations, thirty in all
+        String source = "function first(n : int) : int {\n" +
+                "  for (i in " + TEN + ") {\n" +
+                "    if (i > n) {\n      return i\n    }\n" +
+                "  }\n" +
+                "  return 0\n" +
+                "}\n" +
+                "var total = 0\n" +
+                "for (j in " + TEN + ") {\n  total = total + first(1)\n}\n" +
+                "print(total)\n";
+        ExecutionBudget enough = new ExecutionBudget();
+        enough.setMaxLoopIterations(30);
+        assertEquals("20\n", interpret(source, enough));
+        assertEquals("20\n", compiled(source, enough));
+
+        ExecutionBudget tooFew = new ExecutionBudget();
+        tooFew.setMaxLoopIterations(29);
+        assertLimit(ExecutionBudget.Limit.LOOP_ITERATIONS, () -> interpret(source, tooFew));
+        assertLimit(ExecutionBudget.Limit.LOOP_ITERATIONS, () -> compiled(source, tooFew));
+    }
+
+    @Test
+    void loopsInCalledFunctionsGetWhatTheCallerLeft() {
+        String source = "function g(i : int) {\n" +
+                "  for (j in [1, 2]) {\n" +
+                "    print(i)\n" +
+                "  }\n" +
+                "}\n" +
+                "for (i in " + TEN + ") {\n  g(i)\n}\n";
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(10);
+        CatScriptProgram interpreted = verified(source);
+        CatScriptProgram compiled = ByteCodeGenerator.newInstance(
+                new ByteCodeGenerator(verified(source), CompilerOptions.metered()).compileToClass());
+        for (CatScriptProgram program : List.of(interpreted, compiled)) {
+            CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+            runtime.setBudget(budget);
+            assertLimit(ExecutionBudget.Limit.LOOP_ITERATIONS, () -> program.execute(runtime));
+            assertEquals("1\n1\n2\n2\n3\n3\n", runtime.getOutput());
+        }
+    }
+
+    @Test
+    void unmeteredCodeOnlyTakesAnOutputLimit() {
+        CatScriptProgram program = ByteCodeGenerator.newInstance(new ByteCodeGenerator(verified(LOOPS)).compileToClass());
+        ExecutionBudget quiet = new ExecutionBudget();
+        quiet.setMaxOutputChars(4);
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        runtime.setBudget(quiet);
+        assertLimit(ExecutionBudget.Limit.OUTPUT, () -> program.execute(runtime));
+
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(1_000);
+        runtime.setBudget(budget);
+        assertThrows(IllegalStateException.class, () -> program.execute(runtime));
+    }
+
+    @Test
+    void tieredFunctionsCountAgainstTheInterpretersBudget() {
+        CatScriptProgram program = verified(RECURSION);
+        ExecutionBudget deepEnough = new ExecutionBudget();
+        deepEnough.setMaxCallDepth(51);
+        TieredCompiler tieredCompiler = new TieredCompiler(program, 1);
+        assertEquals("50\n", tiered(program, tieredCompiler, deepEnough));
+        tieredCompiler.awaitCompilations();
+        assertEquals("50\n", tiered(program, tieredCompiler, deepEnough));
+
+        // down() is compiled now and counts its own calls
+        ExecutionBudget shallow = new ExecutionBudget();
+        shallow.setMaxCallDepth(50);
+        assertLimit(ExecutionBudget.Limit.CALL_DEPTH, () -> tiered(program, tieredCompiler, shallow));
+    }
+
+    @Test
+    void pooledRuntimesStartEveryRunAfresh() {
+        CatScriptProgram program = verified(LOOPS);
+        RuntimePool pool = new RuntimePool(1);
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxLoopIterations(110);
+        for (int i = 0; i < 3; i++) {
+            StringBuilder output = new StringBuilder();
+            pool.execute(program, OutputSink.of(output), budget);
+            assertEquals("3025\n", output.toString());
+        }
+        // and the next run without a budget is not held to it
+        assertEquals("3025\n", pool.execute(program));
+    }
+
+    @Test
+    void compiledCallsWithoutLoopsStopAtTheDeadline() {
+        String source = "function fib(n : int) : int {\n" +
+                "  if (n < 2) {\n" +
+                "    return n\n" +
+                "  }\n" +
+                "  return fib(n - 1) + fib(n - 2)\n" +
+                "}\n" +
+                "print(fib(60))\n";
+        ExecutionBudget quick = new ExecutionBudget();
+        quick.setMaxWallTimeMillis(100);
+        assertLimit(ExecutionBudget.Limit.WALL_TIME, () -> compiled(source, quick));
+    }
+
+    @Test
+    void compiledCallsAreHeldToTheDepthOfEachRun() {
+        CatScriptProgram program = ByteCodeGenerator.newInstance(
+                new ByteCodeGenerator(verified(RECURSION), CompilerOptions.metered()).compileToClass());
+        ExecutionBudget deep = new ExecutionBudget();
+        deep.setMaxCallDepth(51);
+        ExecutionBudget shallow = new ExecutionBudget();
+        shallow.setMaxCallDepth(20);
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        for (int i = 0; i < 2; i++) {
+            runtime.reset(0);
+            runtime.setBudget(deep);
+            program.execute(runtime);
+            assertEquals("50\n", runtime.getOutput());
+            runtime.reset(0);
+            runtime.setBudget(shallow);
+            assertLimit(ExecutionBudget.Limit.CALL_DEPTH, () -> program.execute(runtime));
+        }
+    }
+
+    // nested loops that would take hours
+    private static String forever() {
+        StringBuilder list = new StringBuilder("[0");
+        for (int i = 1; i < 200; i++) {
+            list.append(", ").append(i);
+        }
+        list.append("]");
+        return "var total = 0\n" +
+                "for (a in " + list + ") {\n  for (b in " + list + ") {\n    for (c in " + list + ") {\n" +
+                "      for (d in " + list + ") {\n        for (e in " + list + ") {\n" +
+                "          total = total + 1\n" +
+                "        }\n      }\n    }\n  }\n}\n" +
+                "print(total)\n";
+    }
+
+    private static void assertLimit(ExecutionBudget.Limit limit, Runnable run) {
+        BudgetExceededException exceeded = assertThrows(BudgetExceededException.class, run::run);
+        assertEquals(limit, exceeded.getLimit());
+    }
+
+    private static String interpret(String source, ExecutionBudget budget) {
+        CatScriptProgram program = verified(source);
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+        runtime.setBudget(budget);
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    private static String compiled(String source, ExecutionBudget budget) {
+        CatScriptProgram program = ByteCodeGenerator.newInstance(
+                new ByteCodeGenerator(verified(source), CompilerOptions.metered()).compileToClass());
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        runtime.setBudget(budget);
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    private static String tiered(CatScriptProgram program, TieredCompiler tieredCompiler, ExecutionBudget budget) {
+        CatscriptRuntime runtime = tieredCompiler.newRuntime();
+        runtime.setBudget(budget);
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    private static CatScriptProgram verified(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
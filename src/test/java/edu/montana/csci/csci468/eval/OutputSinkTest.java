@@ -0,0 +1,173 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputSinkTest {
+
+    static final String SOURCE = "var total = 0\n" +
+            "for (i in [1, 2, 3]) {\n" +
+            "  total = total + i\n" +
+            "  print(total)\n" +
+            "}\n" +
+            "print(\"done\")\n" +
+            "print(null)\n";
+
+    @Test
+    void interpreterPrintsToTheSink() {
+        CatScriptProgram program = verified(SOURCE);
+        List<String> lines = new ArrayList<>();
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots(), null, OutputSink.lines(lines::add));
+        program.execute(runtime);
+        assertEquals(List.of("1", "3", "6", "done", "null"), lines);
+        assertEquals("", runtime.getOutput());
+
+        StringWriter writer = new StringWriter();
+        program.execute(new CatscriptRuntime(program.getGlobalSlots(), null, OutputSink.of(writer)));
+        assertEquals("1\n3\n6\ndone\nnull\n", writer.toString());
+    }
+
+    @Test
+    void linesArriveWhileTheProgramRuns() {
+        CatScriptProgram program = verified(SOURCE);
+        List<String> lines = new ArrayList<>();
+        // a sink that gives up stops the program at that print
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots(), null, OutputSink.lines(line -> {
+            lines.add(line);
+            if (lines.size() == 2) {
+                throw new IllegalStateException("closed");
+            }
+        }));
+        assertThrows(IllegalStateException.class, () -> program.execute(runtime));
+        assertEquals(List.of("1", "3"), lines);
+    }
+
+    @Test
+    void streamsAreWrittenOnFlush() {
+        CatScriptProgram program = verified("print(\"hello\")\n");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RuntimePool pool = new RuntimePool(1);
+        pool.execute(program, OutputSink.of(bytes));
+        assertEquals("hello\n", bytes.toString(StandardCharsets.UTF_8));
+        // the pooled runtime prints to its own buffer again
+        assertEquals("hello\n", pool.execute(program));
+    }
+
+    @Test
+    void slowPrintersAreSentAsTheyPrint() throws Exception {
+        CatScriptProgram program = verified("print(\"first\")\nprint(\"second\")\n");
+        CountDownLatch arrived = new CountDownLatch(1);
+        CountDownLatch carryOn = new CountDownLatch(1);
+        List<String> writes = new CopyOnWriteArrayList<>();
+        // holds the run up in its first write, until the test lets it go
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                super.write(b, off, len);
+                writes.add(new String(b, off, len, StandardCharsets.UTF_8));
+                arrived.countDown();
+                try {
+                    carryOn.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        OutputSink sink = OutputSink.of(bytes);
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots(), null, sink);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> run = executor.submit(() -> program.execute(runtime));
+            assertTrue(arrived.await(10, TimeUnit.SECONDS));
+            assertFalse(run.isDone());
+            assertEquals(List.of("first\n"), writes);
+            carryOn.countDown();
+            run.get(10, TimeUnit.SECONDS);
+        } finally {
+            carryOn.countDown();
+            executor.shutdownNow();
+        }
+        sink.flush();
+        assertEquals("first\nsecond\n", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamSinkEncodesAnyLine() {
+        String wide = "caf\u00e9 \u732b \uD83D\uDC31";
+        String longLine = "x".repeat(20_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink sink = OutputSink.of(bytes);
+        StringBuilder expected = new StringBuilder();
+        // enough short lines to cross the buffer boundary a few times
+        for (int i = 0; i < 3_000; i++) {
+            sink.print(i);
+            expected.append(i).append('\n');
+            if (i % 1000 == 0) {
+                sink.print(wide);
+                sink.print(longLine);
+                expected.append(wide).append('\n').append(longLine).append('\n');
+            }
+        }
+        sink.print(null);
+        expected.append("null\n");
+        sink.flush();
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void compiledProgramsPrintToTheSink() {
+        CatScriptProgram compiled = ByteCodeGenerator.newInstance(
+                new ByteCodeGenerator(verified("print(1)\nprint(\"two\")\n")).compileToClass());
+        StringWriter writer = new StringWriter();
+        OutputSink sink = OutputSink.of(writer);
+        CatscriptRuntime runtime = new CatscriptRuntime(0, null, sink);
+        compiled.execute(runtime);
+        sink.flush();
+        assertEquals("1\ntwo\n", writer.toString());
+        assertEquals("", runtime.getOutput());
+    }
+
+    @Test
+    void writeFailuresEndTheRun() {
+        Writer broken = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws java.io.IOException {
+                throw new java.io.IOException("client went away");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CatScriptProgram program = verified(SOURCE);
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots(), null, OutputSink.of(broken));
+        assertThrows(java.io.UncheckedIOException.class, () -> program.execute(runtime));
+    }
+
+    private static CatScriptProgram verified(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
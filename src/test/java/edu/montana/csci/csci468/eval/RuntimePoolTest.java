@@ -0,0 +1,152 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuntimePoolTest {
+
+    static final String FIB = "function fib(n : int) : int {\n" +
+            "  if (n < 2) {\n" +
+            "    return n\n" +
+            "  }\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "}\n" +
+            "var total = 0\n" +
+            "for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+            "  total = total + fib(i)\n" +
+            "}\n" +
+            "print(total)\n" +
+            "print(fib(fib(5)))\n";
+
+    @Test
+    void pooledRunsPrintWhatFreshRunsPrint() {
+        CatScriptProgram program = verified(FIB);
+        RuntimePool pool = new RuntimePool(4);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("143\n5\n", pool.execute(program));
+        }
+        assertEquals(1, pool.getCreated());
+        assertEquals(4, pool.getReused());
+    }
+
+    @Test
+    void resetClearsTheLastRun() {
+        RuntimePool pool = new RuntimePool(1);
+        assertEquals("1\n", pool.execute(verified("var x = 1\nprint(x)\n")));
+        // the second program's only global was never assigned in this run
+        CatScriptProgram other = verified("var y = null\nprint(y)\n");
+        assertEquals("null\n", pool.execute(other));
+        // a runtime is grown for a program with more globals
+        assertEquals("6\n", pool.execute(verified("var a = 1\nvar b = 2\nvar c = 3\nprint(a + b + c)\n")));
+        assertEquals(1, pool.getCreated());
+    }
+
+    @Test
+    void releasedRuntimesKeepNothingOfTheirRun() {
+        CatScriptProgram program = verified("var x = [1, 2, 3]\nprint(x)\n");
+        RuntimePool pool = new RuntimePool(1);
+        CatscriptRuntime runtime = pool.acquire(program.getGlobalSlots());
+        StringBuilder printed = new StringBuilder();
+        runtime.setOutput(OutputSink.of(printed));
+        program.execute(runtime);
+        pool.release(runtime);
+
+        assertNull(runtime.getValue(1, 0));
+        assertEquals("", runtime.getOutput());
+        // the sink of the finished run is no longer printed to
+        runtime.print("idle");
+        assertEquals("[1, 2, 3]\n", printed.toString());
+        assertEquals("idle\n", runtime.getOutput());
+    }
+
+    @Test
+    void framesAreReleasedWhenACallFails() {
+        CatScriptProgram failing = verified("function f(n : int) : int {\n  return n / 0\n}\nprint(f(f(1)))\n");
+        CatScriptProgram working = verified(FIB);
+        CatscriptRuntime runtime = new CatscriptRuntime(failing.getGlobalSlots());
+        assertThrows(ArithmeticException.class, () -> failing.execute(runtime));
+        runtime.reset(working.getGlobalSlots());
+        working.execute(runtime);
+        assertEquals("143\n5\n", runtime.getOutput());
+    }
+
+    @Test
+    void resetDoesNotKeepALargeBufferOrTheLastReturnedValue() {
+        CatScriptProgram program = verified("function f() : object {\n  return [1, 2, 3]\n}\n" +
+                "for (i in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+                "  for (j in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+                "    for (k in [1, 2, 3, 4, 5, 6, 7, 8, 9, 10]) {\n" +
+                "      print(\"a line of output long enough to fill the buffer\")\n" +
+                "    }\n" +
+                "  }\n" +
+                "}\n" +
+                "var x = f()\n");
+        CatscriptRuntime runtime = new CatscriptRuntime(program.getGlobalSlots());
+        program.execute(runtime);
+        assertTrue(runtime.getBufferCapacity() > CatscriptRuntime.MAX_KEPT_BUFFER);
+        assertNull(runtime.getPendingReturnValue());
+        runtime.reset(program.getGlobalSlots());
+        assertTrue(runtime.getBufferCapacity() <= CatscriptRuntime.MAX_KEPT_BUFFER);
+        assertEquals("", runtime.getOutput());
+    }
+
+    @Test
+    void finishedRunsLeaveNoDeadlineOnTheTimer() {
+        CatScriptProgram program = verified(FIB);
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.setMaxWallTimeMillis(60_000);
+        RuntimePool pool = new RuntimePool(1);
+        int pending = BudgetMeter.pendingDeadlines();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder printed = new StringBuilder();
+            pool.execute(program, OutputSink.of(printed), budget);
+            assertEquals("143\n5\n", printed.toString());
+        }
+        // deadlines left by other tests may have run out meanwhile
+        assertTrue(BudgetMeter.pendingDeadlines() <= pending);
+    }
+
+    @Test
+    void oneProgramRunsOnManyThreads() throws Exception {
+        CatScriptProgram program = verified(FIB);
+        RuntimePool pool = new RuntimePool(8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> pool.execute(program)));
+            }
+            for (Future<String> result : results) {
+                assertEquals("143\n5\n", result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(200, pool.getCreated() + pool.getReused());
+    }
+
+    @Test
+    void executeAndGetOutputStillWorkOnTheProgram() {
+        CatScriptProgram program = verified(FIB);
+        program.execute();
+        program.execute();
+        assertEquals("143\n5\n143\n5\n", program.getOutput());
+        assertEquals("143\n5\n", new RuntimePool(1).execute(program));
+        assertEquals("143\n5\n143\n5\n", program.getOutput());
+    }
+
+    private static CatScriptProgram verified(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
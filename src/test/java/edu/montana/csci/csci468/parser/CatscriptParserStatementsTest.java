@@ -194,4 +194,25 @@ public class CatscriptParserStatementsTest extends CatscriptTestBase {
         assertTrue(returnStmt.getExpression() instanceof IntegerLiteralExpression);
     }
 
+    @Test
+    public void leadingFunctionCallIsTheFirstStatement() {
+        CatScriptProgram program = new CatScriptParser().parse("foo(1, [2, 3]) print(1)\nfoo(4)");
+        assertFalse(program.isExpression());
+        assertEquals(3, program.getStatements().size());
+        FunctionCallStatement call = (FunctionCallStatement) program.getStatements().get(0);
+        assertEquals("foo", call.getName());
+        assertEquals(2, call.getArguments().size());
+        assertSame(program, call.getParent());
+        assertTrue(program.getStatements().get(1) instanceof PrintStatement);
+    }
+
+    @Test
+    public void sourcesThatAreOneExpressionStayExpressions() {
+        assertTrue(new CatScriptParser().parse("foo(1) + 2").isExpression());
+        assertTrue(new CatScriptParser().parse("print").isExpression());
+        assertTrue(new CatScriptParser().parse("var + 1").isExpression());
+        assertFalse(new CatScriptParser().parse("var x = 1").isExpression());
+        assertFalse(new CatScriptParser().parse("x = 1").isExpression());
+    }
+
 }
@@ -0,0 +1,117 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentTest extends CatscriptTestBase {
+
+    static final String[] STATEMENTS = {
+            "var x = 10\n",
+            "var y : int = x + 2\n",
+            "print(x * y)\n",
+            "function foo(a : int, b : string) : int {\n  print(b)\n  return a + 1\n}\n",
+            "for (i in [1, 2, 3]) {\n  print(i)\n}\n",
+            "if (x > 2) { print(true) } else { print(false) }\n",
+            "foo(1, \"abc\")\n",
+            "var lst = [1, 2,\n  3]\n",
+            "// just a comment\n",
+            "\n",
+    };
+
+    static final String[] FRAGMENTS = {
+            "x", "var ", "print(", ")", "{", "}", "\n", " ", "1", "\"", "\"str\"", "+ 2", "function ", "(", ",",
+            "// note\n", "if (", "else", "for (", " in ", "[", "]", "return ", "foo(2, \"s\")", "\n\n",
+    };
+
+    @Test
+    void randomEditsParseLikeAFullParse() {
+        Random random = new Random(468);
+        for (int round = 0; round < 40; round++) {
+            Document document = Document.parse(randomProgram(random, 1 + random.nextInt(20)));
+            assertSameTree(document);
+            for (int edit = 0; edit < 25; edit++) {
+                String source = document.getSource();
+                int start = random.nextInt(source.length() + 1);
+                int end = Math.min(source.length(), start + (random.nextBoolean() ? 0 : random.nextInt(12)));
+                String replacement = random.nextInt(4) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+                String edited = source.substring(0, start) + replacement + source.substring(end);
+                try {
+                    new CatScriptParser().parse(edited);
+                } catch (RuntimeException e) {
+                    // the parser fails on some malformed sources, an incremental parse fails the same way
+                    Document previous = document;
+                    assertThrows(e.getClass(), () -> previous.edit(start, end, replacement));
+                    assertSameTree(previous);
+                    continue;
+                }
+                document = document.edit(start, end, replacement);
+                assertSameTree(document);
+            }
+        }
+    }
+
+    @Test
+    void editsOnlyReparseTheStatementsAroundThem() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("var v").append(i).append(" = ").append(i).append("\n");
+        }
+        Document document = Document.parse(sb.toString());
+        int middle = document.getSource().indexOf("var v50");
+
+        Document edited = document.edit(middle + 4, middle + 6, "renamed");
+        assertSameTree(edited);
+        assertEquals(100, edited.getProgram().getStatements().size());
+        assertEquals(49, edited.getReusedStatements());
+
+        Document withLines = edited.edit(0, 0, "print(1)\n\n");
+        assertSameTree(withLines);
+        assertEquals(100, withLines.getReusedStatements());
+        assertEquals(3, withLines.getProgram().getStatements().get(1).getStart().getLine());
+    }
+
+    @Test
+    void expressionProgramsAreParsedAsExpressions() {
+        Document document = Document.parse("var x = 1");
+        Document expression = document.edit(0, 8, "");
+        assertEquals("1", expression.getSource());
+        assertNotNull(expression.getProgram().getExpression());
+        assertSameTree(expression);
+        assertSameTree(expression.edit(0, 0, "print("));
+        assertTrue(Document.parse("").getProgram().getStatements().isEmpty());
+    }
+
+    @Test
+    void editedVersionsCanNotBeUsedAgain() {
+        Document document = Document.parse("var x = 1\nprint(x)\n");
+        Document edited = document.edit(8, 9, "2");
+        assertEquals(0, document.getVersion());
+        assertEquals(1, edited.getVersion());
+        assertThrows(IllegalStateException.class, () -> document.edit(0, 0, "print(0)\n"));
+        assertThrows(IllegalStateException.class, document::getProgram);
+        assertSameTree(edited);
+
+        Document expression = edited.edit(0, edited.getSource().length(), "1 + 2");
+        assertEquals(2, expression.getVersion());
+        assertThrows(IllegalStateException.class, edited::getSource);
+        assertSameTree(expression);
+    }
+
+    private String randomProgram(Random random, int statements) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            sb.append(STATEMENTS[random.nextInt(STATEMENTS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private void assertSameTree(Document document) {
+        CatScriptProgram expected = new CatScriptParser().parse(document.getSource());
+        assertEquals(describe(expected, false), describe(document.getProgram(), false), document.getSource());
+    }
+}
@@ -0,0 +1,79 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelVerifyTest extends CatscriptTestBase {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    void validProgramsVerifyTheSameInParallel() {
+        for (String source : ParsedProgramCacheTest.PROGRAMS) {
+            CatScriptProgram sequential = new CatScriptParser().parse(source);
+            sequential.verify();
+            CatScriptProgram parallel = new CatScriptParser().parse(source);
+            parallel.verify(POOL);
+
+            assertEquals(describe(sequential), describe(parallel), source);
+            assertEquals(sequential.getGlobalSlots(), parallel.getGlobalSlots());
+            assertEquals(sequential.run(), parallel.run(), source);
+        }
+    }
+
+    @Test
+    void errorsComeOutInTheSequentialOrder() {
+        StringBuilder source = new StringBuilder("var early = 1\n");
+        for (int i = 0; i < 200; i++) {
+            source.append("function f").append(i).append("(a : int) : int {\n")
+                    .append("  print(early)\n")
+                    // later is declared after every function, so it is unknown in all of them
+                    .append("  print(later)\n")
+                    .append("  return f").append((i + 1) % 200).append("(\"a\")\n")
+                    .append("}\n");
+            if (i % 50 == 0) {
+                source.append("print(missing").append(i).append(")\n");
+            }
+        }
+        source.append("function f7() {}\n");
+        source.append("var later = \"x\"\n");
+
+        List<String> sequential = errors(() -> new CatScriptParser().parse(source.toString()).verify());
+        List<String> parallel = errors(() -> new CatScriptParser().parse(source.toString()).verify(POOL));
+        assertEquals(2 * 200 + 4 + 1, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void functionsSeeFunctionsDeclaredAfterThem() {
+        String source = "function a() : int { return b() }\nfunction b() : int { return 1 }\nprint(a())\n";
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify(POOL);
+        assertEquals("1\n", program.run());
+        FunctionDefinitionStatement a = program.getFunction("a");
+        assertEquals(CatscriptType.INT, a.getType());
+    }
+
+    private static List<String> errors(Runnable verify) {
+        ParseErrorException exception = assertThrows(ParseErrorException.class, verify::run);
+        List<String> errors = new ArrayList<>();
+        for (ParseError error : exception.getErrors()) {
+            errors.add(error.getLocation() + " " + error.getFullMessage());
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,111 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParsedProgramCacheTest extends CatscriptTestBase {
+
+    static final String[] PROGRAMS = {
+            "1 + 2 * 3",
+            "\"a\" + 1",
+            "[1, 2, 3]",
+            "print(1)\nprint(\"two\")\nprint(null)\n",
+            "var x = 10\nx = x + 1\nprint(x)\n",
+            "var lst = [1, 2, 3]\nfor (i in lst) {\n  print(i * 2)\n}\n",
+            "if (1 < 2) { print(true) } else { print(false) }\nif (not (1 == 2)) { print(-3) }\n",
+            "function foo(a : int, b : string, c) : int {\n  print(b)\n  print(c)\n  return a + 1\n}\n" +
+                    "print(foo(1, \"abc\", true))\n",
+            "function count(n : int) {\n  for (i in [1, 2, 3]) {\n    var y = n + i\n    print(y)\n  }\n}\n" +
+                    "count(10)\ncount(20)\n",
+            "var s = \"tab\\there\"\nfunction id(x : object) : object { return x }\nprint(id(s))\n",
+    };
+
+    @Test
+    void programsReadBackAsTheSameVerifiedTree() {
+        for (String source : PROGRAMS) {
+            CatScriptProgram program = verified(source);
+            byte[] hash = ParsedProgramCache.hash(source);
+            CatScriptProgram read = AstReader.read(ByteBuffer.wrap(AstWriter.write(program, hash)), source, hash);
+
+            assertEquals(describe(program), describe(read), source);
+            assertEquals(program.run(), read.run(), source);
+            assertEquals(program.getStart().getLineContent(), read.getStart().getLineContent());
+        }
+    }
+
+    @Test
+    void otherVersionsAndSourcesAreNotRead() {
+        String source = PROGRAMS[4];
+        byte[] hash = ParsedProgramCache.hash(source);
+        byte[] bytes = AstWriter.write(verified(source), hash);
+
+        ByteBuffer otherVersion = ByteBuffer.wrap(bytes.clone());
+        otherVersion.putInt(4, AstWriter.VERSION + 1);
+        assertNull(AstReader.read(otherVersion, source, hash));
+
+        String edited = source + "print(x)\n";
+        assertNull(AstReader.read(ByteBuffer.wrap(bytes), edited, ParsedProgramCache.hash(edited)));
+        assertThrows(IllegalArgumentException.class,
+                () -> AstReader.read(ByteBuffer.wrap(new byte[64]), source, hash));
+    }
+
+    @Test
+    void cacheStoresVerifiedProgramsAndRebuildsBadEntries(@TempDir Path directory) throws IOException {
+        ParsedProgramCache cache = new ParsedProgramCache(directory);
+        String source = PROGRAMS[7];
+        CatScriptProgram first = cache.getProgram(source);
+        CatScriptProgram second = cache.getProgram(source);
+        assertNotSame(first, second);
+        assertEquals(describe(first), describe(second));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // a damaged entry is rebuilt
+        Path entry = entries(directory)[0];
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+        assertEquals(describe(first), describe(cache.getProgram(source)));
+        assertEquals(1, cache.getRebuilds());
+        assertEquals(describe(first), describe(cache.getProgram(source)));
+        assertEquals(2, cache.getHits());
+
+        // programs with errors are not stored
+        assertThrows(ParseErrorException.class, () -> cache.getProgram("print(y)"));
+        assertEquals(1, entries(directory).length);
+    }
+
+    @Test
+    void unwritableDirectoriesStillHandOutPrograms(@TempDir Path directory) throws IOException {
+        // the cache directory is a file, so no entry can be written
+        Path file = Files.createFile(directory.resolve("not-a-directory"));
+        ParsedProgramCache cache = new ParsedProgramCache(file);
+        String source = PROGRAMS[4];
+        assertEquals(verified(source).run(), cache.getProgram(source).run());
+        assertEquals(1, cache.getStoreFailures());
+        assertEquals(describe(cache.getProgram(source)), describe(verified(source)));
+        assertEquals(2, cache.getMisses());
+    }
+
+    private static Path[] entries(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toArray(Path[]::new);
+        }
+    }
+
+    private static CatScriptProgram verified(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+}
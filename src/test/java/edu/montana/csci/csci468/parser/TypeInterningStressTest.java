@@ -0,0 +1,95 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.VariableStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeInterningStressTest {
+
+    private static final int THREADS = 8;
+    private static final int DEPTH = 12;
+
+    @Test
+    void programsVerifiedOnManyThreadsShareListTypes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        try {
+            List<Future<List<CatscriptType>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    // start together so the first lookups of each type race
+                    barrier.await();
+                    List<CatscriptType> types = new ArrayList<>();
+                    for (int depth = 1; depth <= DEPTH; depth++) {
+                        types.add(verifiedType(nested(depth)));
+                    }
+                    return types;
+                }));
+            }
+            List<CatscriptType> expected = results.get(0).get();
+            for (Future<List<CatscriptType>> result : results) {
+                List<CatscriptType> types = result.get();
+                for (int i = 0; i < DEPTH; i++) {
+                    assertSame(expected.get(i), types.get(i));
+                }
+            }
+            // and they are the instances built by hand
+            CatscriptType type = CatscriptType.BOOLEAN;
+            for (int i = 0; i < DEPTH; i++) {
+                type = CatscriptType.getListType(type);
+                assertSame(type, expected.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentLookupsReturnOneInstance() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CatscriptType component = new CatscriptType("stress" + round, Object.class);
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<CatscriptType>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    results.add(executor.submit(() -> {
+                        barrier.await();
+                        return CatscriptType.getListType(CatscriptType.getListType(component));
+                    }));
+                }
+                CatscriptType first = results.get(0).get();
+                for (Future<CatscriptType> result : results) {
+                    assertSame(first, result.get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // a list of depth levels of lists around booleans, with two elements at
+    // every level so verification compares the element types by identity
+    private static String nested(int depth) {
+        String value = "true";
+        for (int i = 0; i < depth; i++) {
+            value = "[" + value + ", " + value + "]";
+        }
+        return "var x = " + value + "\nprint(x)\n";
+    }
+
+    private static CatscriptType verifiedType(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return ((VariableStatement) program.getStatements().get(0)).getType();
+    }
+}
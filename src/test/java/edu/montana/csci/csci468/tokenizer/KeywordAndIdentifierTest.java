@@ -0,0 +1,48 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeywordAndIdentifierTest {
+
+    @Test
+    void keywordRecognitionMatchesTheKeywordMap() {
+        for (Map.Entry<String, TokenType> keyword : TokenType.KEYWORDS.entrySet()) {
+            String src = "x " + keyword.getKey() + " y";
+            assertEquals(keyword.getValue(), TokenType.keyword(src, 2, 2 + keyword.getKey().length()));
+        }
+        for (String identifier : new String[]{"i", "is", "iff", "fo", "form", "nul", "nulls", "prints", "returns",
+                "functions", "functio", "vars", "Var", "elsE", "truth", "fals", "x"}) {
+            assertEquals(TokenType.IDENTIFIER, TokenType.keyword(identifier, 0, identifier.length()), identifier);
+        }
+    }
+
+    @Test
+    void repeatedIdentifiersAreTheSameString() {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer("var foo = 1\nfoo = foo + bar\nprint(foo)");
+        TokenList tokens = tokenizer.getTokens();
+        String first = tokens.get(1).getStringValue();
+        assertEquals("foo", first);
+        assertSame(first, tokens.get(4).getStringValue());
+        assertSame(first, tokens.get(6).getStringValue());
+        assertSame(first, tokenizer.getIdentifierPool().intern("foo"));
+        tokens.forEach(token -> ((Token) token).getStringValue());
+        assertEquals(2, tokenizer.getIdentifierPool().size());
+    }
+
+    @Test
+    void poolGrowsAndKeepsEveryName() {
+        IdentifierPool pool = new IdentifierPool();
+        String[] names = new String[5_000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = pool.intern("name" + i);
+        }
+        for (int i = 0; i < names.length; i++) {
+            assertSame(names[i], pool.intern("xx name" + i + " yy", 3, 3 + names[i].length()));
+        }
+        assertEquals(names.length, pool.size());
+    }
+}
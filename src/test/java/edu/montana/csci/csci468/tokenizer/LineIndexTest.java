@@ -0,0 +1,39 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineIndexTest {
+
+    @Test
+    void lineContentMatchesSplit() {
+        String src = "var x = 1\n\nprint(x)\n  foo\n";
+        String[] lines = src.split("\n", -1);
+        LineIndex lineIndex = new LineIndex(src);
+        assertEquals(lines.length, lineIndex.getLineCount());
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(lines[i], lineIndex.getLineContent(i + 1));
+        }
+    }
+
+    @Test
+    void offsetsMapToLinesAndColumns() {
+        LineIndex lineIndex = new LineIndex("ab\ncd\n\nef");
+        assertEquals(1, lineIndex.getLine(0));
+        assertEquals(1, lineIndex.getLine(2));
+        assertEquals(2, lineIndex.getLine(3));
+        assertEquals(1, lineIndex.getColumn(4));
+        assertEquals(3, lineIndex.getLine(6));
+        assertEquals(4, lineIndex.getLine(8));
+        assertEquals(1, lineIndex.getColumn(8));
+    }
+
+    @Test
+    void tokensUseTheTokenizersLineIndex() {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer("a\n b\n  c");
+        Token c = tokenizer.getTokens().get(2);
+        assertEquals("  c", c.getLineContent());
+        assertSame(tokenizer.getLineIndex(), tokenizer.getLineIndex());
+    }
+}
@@ -0,0 +1,70 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTokenizerTest {
+
+    static final String[] FRAGMENTS = {
+            "var", "x", "foo_bar", "42", "0", "+", "-", "*", "/", "==", "!=", "!", "<=", ">", "(", ")", "{", "}",
+            "[", "]", ":", ",", ".", "=", "\"", "\"abc\"", "\"multi\nline string\"", "\"open\n\nstring",
+            "\"a\\\"b\"", "// comment", "// comment with \" quote", "#", "\n", "\n\n", " ", "\t", "\r\n",
+    };
+
+    @Test
+    void randomSourcesTokenizeLikeTheSequentialTokenizer() {
+        Random random = new Random(468);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String source = randomSource(random, random.nextInt(200));
+                int chunkSize = 1 + random.nextInt(32);
+                assertSameTokens(source, new ParallelTokenizer(pool, chunkSize).tokenize(source));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void stringsSpanningSeveralChunksAreRescanned() {
+        String source = "var x = \"a\nb\nc\nd\ne\"\nprint(x)\n";
+        assertSameTokens(source, new ParallelTokenizer(ForkJoinPool.commonPool(), 1).tokenize(source));
+    }
+
+    @Test
+    void emptySourcesOnlyHaveEof() {
+        CatScriptTokenizer tokenizer = new ParallelTokenizer().tokenize("");
+        assertEquals(1, tokenizer.getTokens().size());
+        assertEquals(TokenType.EOF, tokenizer.getTokens().get(0).getType());
+    }
+
+    private String randomSource(Random random, int fragments) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            if (random.nextBoolean()) {
+                sb.append(random.nextInt(4) == 0 ? "\n" : " ");
+            }
+        }
+        return sb.toString();
+    }
+
+    private void assertSameTokens(String source, CatScriptTokenizer parallel) {
+        List<String> expected = describe(new CatScriptTokenizer(source));
+        List<String> actual = describe(parallel);
+        assertEquals(expected, actual, () -> "source: " + source);
+    }
+
+    private List<String> describe(CatScriptTokenizer tokenizer) {
+        return tokenizer.getTokens().stream()
+                .map(token -> token + " " + token.getLineContent())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RopeTest {
+
+    @Test
+    void editsReadLikeTheSameEditsToAString() {
+        Random random = new Random(468);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            expected.append((char) ('a' + random.nextInt(26)));
+        }
+        Rope rope = Rope.of(expected.toString());
+        for (int edit = 0; edit < 3_000; edit++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = Math.min(expected.length(), start + random.nextInt(random.nextInt(8) == 0 ? 3_000 : 5));
+            StringBuilder replacement = new StringBuilder();
+            int length = random.nextInt(random.nextInt(8) == 0 ? 2_500 : 4);
+            for (int i = 0; i < length; i++) {
+                replacement.append(random.nextInt(10) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+            }
+            Rope before = rope;
+            String beforeText = expected.toString();
+            rope = rope.replace(start, end, replacement.toString());
+            expected.replace(start, end, replacement.toString());
+
+            assertEquals(beforeText, before.toString());
+            assertEquals(expected.length(), rope.length());
+            int at = random.nextInt(expected.length());
+            assertEquals(expected.charAt(at), rope.charAt(at));
+            int from = random.nextInt(expected.length() + 1);
+            int to = from + random.nextInt(expected.length() - from + 1);
+            assertEquals(expected.substring(from, to), rope.substring(from, to));
+            assertEquals(expected.indexOf("\n", from), rope.indexOf('\n', from));
+            assertEquals(expected.lastIndexOf("\n", from), rope.lastIndexOf('\n', from));
+            // balanced, however the pieces came to be
+            assertTrue(rope.height() <= 2 * (32 - Integer.numberOfLeadingZeros(rope.length() + 1)) + 2);
+        }
+        assertEquals(expected.toString(), rope.toString());
+    }
+
+    @Test
+    void typingKeepsThePiecesWhole() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        Rope rope = Rope.of(sb.toString());
+        int height = rope.height();
+        for (int i = 0; i < 10_000; i++) {
+            rope = rope.replace(50_000, 50_000, "x").replace(50_000, 50_001, "");
+        }
+        assertEquals(sb.toString(), rope.toString());
+        assertEquals(height, rope.height());
+    }
+
+    @Test
+    void emptySources() {
+        Rope rope = Rope.of("");
+        assertEquals(0, rope.length());
+        assertFalse(rope.hasCharAt(0));
+        rope = rope.replace(0, 0, "var x = 1");
+        assertEquals("var x = 1", rope.toString());
+        assertEquals("", rope.replace(0, 9, "").toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> Rope.of("ab").charAt(2));
+    }
+}
@@ -0,0 +1,176 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseError;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingTokenizerTest {
+
+    static final String SOURCE = "// a comment\n" +
+            "function foo(x : int) : int {\n" +
+            "  return x * 2\n" +
+            "}\n" +
+            "var s = \"hello\"\n" +
+            "print(foo(21))\n" +
+            "print(s) !";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readerTokensMatchStringTokens() {
+        assertSameTokens(CatScriptTokenizer.streaming(new StringReader(SOURCE)));
+    }
+
+    @Test
+    void charBufferTokensMatchStringTokens() {
+        assertSameTokens(CatScriptTokenizer.streaming(CharBuffer.wrap(SOURCE)));
+    }
+
+    @Test
+    void mappedFileTokensMatchStringTokens() throws Exception {
+        Path file = Files.writeString(directory.resolve("script.cat"), SOURCE);
+        assertSameTokens(CatScriptTokenizer.streaming(file));
+    }
+
+    @Test
+    void mappedFilesAreDecodedAsUtf8() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        // one, two and three byte characters and a surrogate pair, on every
+        // line and across the windows the file is decoded in
+        for (int i = 0; i < 2_000; i++) {
+            sb.append("print(").append(i).append(") // caf\u00e9 \u2603 \ud83d\ude00\n");
+        }
+        String source = sb.toString();
+        Path file = Files.writeString(directory.resolve("utf8.cat"), source);
+        List<Token> expected = new CatScriptTokenizer(source).getTokens().stream().collect(Collectors.toList());
+        List<Token> actual = CatScriptTokenizer.streaming(file).getTokens().stream().collect(Collectors.toList());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+            assertEquals(expected.get(i).getLineContent(), actual.get(i).getLineContent());
+        }
+
+        Path malformed = Files.write(directory.resolve("bad.cat"), new byte[]{'p', (byte) 0xC3, '(', ')'});
+        assertThrows(UncheckedIOException.class, () -> CatScriptTokenizer.streaming(malformed).getTokens().size());
+    }
+
+    @Test
+    void tokensAreScannedAsTheyAreRequested() {
+        CatScriptTokenizer tokenizer = CatScriptTokenizer.streaming(new StringReader("var x = 1\nprint(x)"));
+        TokenList tokens = tokenizer.getTokens();
+        assertEquals(0, tokens.scannedTokens());
+        assertTrue(tokens.match(TokenType.VAR));
+        assertEquals(1, tokens.scannedTokens());
+        tokens.consumeToken();
+        assertEquals("x", tokens.consumeToken().getStringValue());
+        assertEquals(2, tokens.scannedTokens());
+    }
+
+    @Test
+    void largeReaderSourcesSpanChunks() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("var variable_").append(i).append(" = ").append(i).append("\n");
+        }
+        String source = sb.toString();
+        CatScriptTokenizer tokenizer = CatScriptTokenizer.streaming(new StringReader(source));
+        List<String> values = tokenizer.getTokens().stream().map(Token::getStringValue).collect(Collectors.toList());
+        assertEquals(new CatScriptTokenizer(source).getTokens().stream().map(Token::getStringValue).collect(Collectors.toList()), values);
+        assertEquals("var variable_4999 = 4999", tokenizer.getTokens().get(values.size() - 2).getLineContent());
+    }
+
+    @Test
+    void streamingKeepsOneCopyOfWhatItRead() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("print(value_").append(i).append(" + 1)\n");
+        }
+        String source = sb.toString();
+
+        CatScriptTokenizer reader = CatScriptTokenizer.streaming(new StringReader(source));
+        TokenList tokens = reader.getTokens();
+        tokens.get(10);
+        // a token ahead only reads up to the chunk it is in
+        assertTrue(reader.src.heldChars() <= 8192);
+        int count = tokens.size();
+        // and the whole source once it is all scanned, the tokenizer on its
+        // own lets go of nothing
+        assertTrue(reader.src.heldChars() >= source.length());
+        assertTrue(reader.src.heldChars() < source.length() + 8192);
+        assertTrue(tokens.capacity() < 2 * count);
+
+        Path file = Files.writeString(directory.resolve("large.cat"), source);
+        CatScriptTokenizer mapped = CatScriptTokenizer.streaming(file);
+        assertEquals(count, mapped.getTokens().size());
+        // only the window being decoded
+        assertTrue(mapped.src.heldChars() <= 8192);
+        assertEquals("print(value_19999 + 1)", mapped.getTokens().get(count - 2).getLineContent());
+        assertEquals("print(value_0 + 1)", mapped.getTokens().get(0).getLineContent());
+    }
+
+    @Test
+    void parsingLetsGoOfWhatItHasBuilt() {
+        StringBuilder sb = new StringBuilder("var total = 0\n");
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("total = total + ").append(i).append("\n");
+        }
+        sb.append("print(total)\n");
+        String source = sb.toString();
+
+        CatScriptTokenizer reader = CatScriptTokenizer.streaming(new StringReader(source));
+        CatScriptProgram program = new CatScriptParser().parse(reader);
+        assertTrue(source.length() > 10 * 8192);
+        assertTrue(reader.src.heldChars() <= 2 * 8192);
+        assertTrue(reader.getTokens().capacity() <= 64);
+        program.verify();
+        assertEquals("199990000\n", program.run());
+    }
+
+    @Test
+    void syntaxErrorsKeepTheirLinesWhenTheParseLetsGo() {
+        StringBuilder sb = new StringBuilder("print(y)\n");
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("print(").append(i).append(")\n");
+        }
+        sb.append("var x = 1 +\nprint(x)\n");
+
+        CatScriptTokenizer reader = CatScriptTokenizer.streaming(new StringReader(sb.toString()));
+        CatScriptProgram program = new CatScriptParser().parse(reader);
+        assertTrue(reader.src.firstHeld() > 0);
+        List<ParseError> errors = assertThrows(ParseErrorException.class, program::verify).getErrors();
+        // the undefined variable is only found once the parse has let go of it
+        assertEquals("Line 1\n\nError: This symbol is not defined", errors.get(0).getFullMessage());
+        assertTrue(errors.get(1).getFullMessage().startsWith("Line 5003: print(x)\n"));
+    }
+
+    @Test
+    void parserAcceptsStreamingTokenizers() {
+        CatScriptProgram program = new CatScriptParser().parse(CatScriptTokenizer.streaming(new StringReader("var x = 20\nprint(x + 1)")));
+        program.verify();
+        assertEquals("21\n", program.run());
+    }
+
+    private void assertSameTokens(CatScriptTokenizer streaming) {
+        List<Token> expected = new CatScriptTokenizer(SOURCE).getTokens().stream().collect(Collectors.toList());
+        List<Token> actual = streaming.getTokens().stream().collect(Collectors.toList());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+            assertEquals(expected.get(i).getLineContent(), actual.get(i).getLineContent());
+        }
+    }
+}